@@ -1,9 +1,38 @@
 package com.fitness.activityservice.config;
 
+import com.fitness.mongo.MongoIndexInitializer;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 
 @Configuration
 @EnableMongoAuditing
 public class MongoConfig {
+
+    //Activities and their outbox events are always written in one transaction, which needs Mongo to run
+    //as a replica set (a single node one is enough). Checked here so a standalone server fails the startup
+    //instead of every tracked activity.
+    @Bean
+    public MongoTransactionManager mongoTransactionManager(MongoDatabaseFactory mongoDatabaseFactory){
+        Document hello = mongoDatabaseFactory.getMongoDatabase().runCommand(new Document("hello", 1));
+        if (hello.get("setName") == null && !"isdbgrid".equals(hello.get("msg"))) {
+            throw new IllegalStateException("Mongo must run as a replica set or sharded cluster for activity transactions");
+        }
+        return new MongoTransactionManager(mongoDatabaseFactory);
+    }
+
+    //Creates the declared indexes before any listener starts and checks the repository queries against them
+    @Bean
+    public MongoIndexInitializer mongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mongoMappingContext,
+                                                       ApplicationContext applicationContext,
+                                                       @Value("${mongodb.indexes.fail-fast:true}") boolean failFast){
+        return new MongoIndexInitializer(mongoTemplate, mongoMappingContext, applicationContext, failFast);
+    }
 }
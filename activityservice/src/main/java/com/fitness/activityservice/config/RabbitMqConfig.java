@@ -21,6 +21,10 @@ public class RabbitMqConfig {
     private String exchange;
     @Value("${rabbitmq.routing.key}")
     private String routingKey;
+    @Value("${rabbitmq.bulk.queue:activity.bulk.queue}")
+    private String bulkQueue;
+    @Value("${rabbitmq.bulk.routing-key:activity.tracking.bulk}")
+    private String bulkRoutingKey;
 
     //Declares a queue named activityQueue
     @Bean
@@ -39,6 +43,16 @@ public class RabbitMqConfig {
         return BindingBuilder.bind(activityQueue).to(activityExchange).with(routingKey);
     }
 
+    //Lane for bulk uploads and backfills, consumed with lower priority than activityQueue
+    @Bean
+    public Queue activityBulkQueue(){
+        return new Queue(bulkQueue,true);
+    }
+    @Bean
+    public Binding activityBulkBinding(Queue activityBulkQueue, DirectExchange activityExchange){
+        return BindingBuilder.bind(activityBulkQueue).to(activityExchange).with(bulkRoutingKey);
+    }
+
 
     //Converts java objects to json when sending messages to queue
     //Makes easier so you do not have to manually serialize objects
@@ -0,0 +1,50 @@
+package com.fitness.activityservice.controller;
+
+import com.fitness.activityservice.dto.ActivityStreaksResponse;
+import com.fitness.activityservice.dto.ActivityTrendsResponse;
+import com.fitness.activityservice.dto.ActivityTypeBreakdown;
+import com.fitness.activityservice.service.ActivityAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/activities/analytics")
+@RequiredArgsConstructor
+public class ActivityAnalyticsController {
+
+    private final ActivityAnalyticsService activityAnalyticsService;
+
+
+    @GetMapping("/trends")
+    public ResponseEntity<ActivityTrendsResponse> getTrends(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(defaultValue = "7") int window,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+
+        return ResponseEntity.ok(activityAnalyticsService.getTrends(userId, from, to, window));
+    }
+
+    @GetMapping("/streaks")
+    public ResponseEntity<ActivityStreaksResponse> getStreaks(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+
+        return ResponseEntity.ok(activityAnalyticsService.getStreaks(userId, from, to));
+    }
+
+    @GetMapping("/types")
+    public ResponseEntity<List<ActivityTypeBreakdown>> getTypeBreakdown(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+
+        return ResponseEntity.ok(activityAnalyticsService.getTypeBreakdown(userId, from, to));
+    }
+}
@@ -1,13 +1,21 @@
 package com.fitness.activityservice.controller;
 
+import com.fitness.activityservice.dto.ActivityPageResponse;
 import com.fitness.activityservice.dto.ActivityRequest;
 import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.dto.ActivityStatsResponse;
+import com.fitness.activityservice.dto.BulkActivityResponse;
+import com.fitness.activityservice.model.StatsPeriod;
 import com.fitness.activityservice.service.ActivityService;
+import com.fitness.activityservice.service.ActivityStatsService;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,6 +24,7 @@ import java.util.List;
 public class ActivityController {
 
     private final ActivityService activityService;
+    private final ActivityStatsService activityStatsService;
 
 
     @PostMapping("/addActivity")
@@ -24,12 +33,39 @@ public class ActivityController {
         return ResponseEntity.ok(activityService.trackActivity(activityRequest));
     }
 
+    @PostMapping("/addActivities")
+    public ResponseEntity<BulkActivityResponse> trackActivities(@RequestBody List<ActivityRequest> activityRequests){
+
+        return ResponseEntity.ok(activityService.trackActivities(activityRequests));
+    }
+
     @GetMapping("/getUserActivities")
     public ResponseEntity<List<ActivityResponse>> getUserActivities(@RequestHeader("X-User-ID") String userId){
 
         return ResponseEntity.ok(activityService.getUserActivities(userId));
     }
 
+    @GetMapping("/getUserActivities/paged")
+    public ResponseEntity<ActivityPageResponse> getUserActivitiesPage(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+
+        return ResponseEntity.ok(activityService.getUserActivitiesPage(userId, from, to, cursor, limit));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ActivityStatsResponse> getUserStats(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(defaultValue = "WEEK") StatsPeriod period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+
+        return ResponseEntity.ok(activityStatsService.getUserStats(userId, period, from, to));
+    }
+
     @GetMapping("/{activityId}")
     public ResponseEntity<ActivityResponse> getActivity(@PathVariable String activityId){
 
@@ -0,0 +1,20 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of a user's activities. Pass {@code nextCursor} back to fetch the following page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityPageResponse {
+
+    private List<ActivityResponse> activities;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,25 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.activityservice.model.ActivityType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Totals of one activity type, either within one bucket or, when {@code bucketStart} is null, over the whole range.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityStatsEntry {
+
+    private LocalDate bucketStart;
+    private ActivityType activityType;
+    private long count;
+    private long totalDuration;
+    private long totalCalories;
+}
@@ -0,0 +1,24 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.activityservice.model.StatsPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A user's activity statistics per day or week. Buckets without any activity are left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityStatsResponse {
+
+    private StatsPeriod period;
+    private LocalDate from;
+    private LocalDate to;
+    private List<ActivityStatsEntry> buckets;
+    private List<ActivityStatsEntry> totals;
+}
@@ -0,0 +1,27 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Consecutive active days of a user within a date range.
+ * The current streak counts when it ends on {@code to} or the day before.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityStreaksResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private long activeDays;
+    private long longestStreak;
+    private LocalDate longestStreakStart;
+    private LocalDate longestStreakEnd;
+    private long currentStreak;
+}
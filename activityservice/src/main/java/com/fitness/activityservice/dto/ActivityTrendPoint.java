@@ -0,0 +1,23 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A user's totals on one active day, with the daily averages over the trailing window ending on that day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityTrendPoint {
+
+    private LocalDate date;
+    private long count;
+    private long totalDuration;
+    private long totalCalories;
+    private double movingAvgDuration;
+    private double movingAvgCalories;
+}
@@ -0,0 +1,22 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily totals and moving averages of a user's activities. Days without any activity are left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityTrendsResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private int windowDays;
+    private List<ActivityTrendPoint> points;
+}
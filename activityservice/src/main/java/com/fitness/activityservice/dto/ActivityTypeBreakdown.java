@@ -0,0 +1,22 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.activityservice.model.ActivityType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totals of one activity type within a date range.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityTypeBreakdown {
+
+    private ActivityType activityType;
+    private long count;
+    private long totalDuration;
+    private long totalCalories;
+    private Double avgDuration;
+    private Double avgCalories;
+}
@@ -0,0 +1,17 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkActivityResponse {
+
+    private int saved;
+    private int rejected;
+    private List<BulkActivityResult> results;
+}
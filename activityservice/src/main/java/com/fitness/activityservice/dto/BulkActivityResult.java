@@ -0,0 +1,26 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single item of a bulk activity upload, matched to the request by {@code index}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkActivityResult {
+
+    private int index;
+    private Status status;
+    private ActivityResponse activity;
+    private String error;
+
+    public enum Status {
+        SAVED,
+        REJECTED
+    }
+}
@@ -0,0 +1,41 @@
+package com.fitness.activityservice.mapper;
+
+import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.model.Activity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Explicit mapping between activity DTOs and the {@link Activity} document.
+ * Replaces reflective ModelMapper matching on the request and listing hot paths.
+ */
+@Component
+public class ActivityMapper {
+
+    public Activity toActivity(ActivityRequest activityRequest) {
+
+        return Activity.builder()
+                .userId(activityRequest.getUserId())
+                .activityType(activityRequest.getActivityType())
+                .duration(activityRequest.getDuration())
+                .caloriesBurned(activityRequest.getCaloriesBurned())
+                .startTime(activityRequest.getStartTime())
+                .additionalMetrics(activityRequest.getAdditionalMetrics())
+                .build();
+    }
+
+    public ActivityResponse toResponse(Activity activity) {
+
+        ActivityResponse activityResponse = new ActivityResponse();
+        activityResponse.setId(activity.getId());
+        activityResponse.setUserId(activity.getUserId());
+        activityResponse.setActivityType(activity.getActivityType());
+        activityResponse.setDuration(activity.getDuration());
+        activityResponse.setCaloriesBurned(activity.getCaloriesBurned());
+        activityResponse.setStartTime(activity.getStartTime());
+        activityResponse.setAdditionalMetrics(activity.getAdditionalMetrics());
+        activityResponse.setCreatedAt(activity.getCreatedAt());
+        activityResponse.setUpdatedAt(activity.getUpdatedAt());
+        return activityResponse;
+    }
+}
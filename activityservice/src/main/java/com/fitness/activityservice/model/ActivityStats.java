@@ -0,0 +1,42 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of a user's activities of one type within one day or week.
+ *
+ * <p>Maintained on write by {@link com.fitness.activityservice.service.ActivityStatsService} with
+ * atomic {@code $inc} upserts, so summaries are read from a handful of buckets instead of the full
+ * activity history. The unique index makes concurrent upserts of a new bucket converge on one document.</p>
+ */
+@Document(collection = "activity_stats")
+@CompoundIndex(name = "userId_period_bucketStart_activityType",
+        def = "{'userId': 1, 'period': 1, 'bucketStart': 1, 'activityType': 1}", unique = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityStats {
+
+    @Id
+    private String id;
+    private String userId;
+    private StatsPeriod period;
+    private LocalDate bucketStart;
+    private ActivityType activityType;
+
+    private long count;
+    private long totalDuration;
+    private long totalCalories;
+
+    private LocalDateTime updatedAt;
+}
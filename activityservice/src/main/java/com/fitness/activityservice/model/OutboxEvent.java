@@ -0,0 +1,42 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * An activity event waiting to be relayed to RabbitMQ.
+ * Written alongside the {@link Activity} it describes and removed once the broker has confirmed it.
+ */
+@Document(collection = "activity_outbox")
+@CompoundIndex(name = "routingKey_createdAt", def = "{'routingKey': 1, 'createdAt': 1}")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    private String id;
+    private String activityId;
+    private String exchange;
+    private String routingKey;
+    private Activity payload;
+    //Failed publishes of this event on its own, it is parked after outbox.relay.max-attempts
+    private int attempts;
+    //Not relayed before this instant while backing off from a failed attempt, null when it never failed
+    private Instant nextAttemptAt;
+
+    @CreatedDate
+    @Indexed
+    private LocalDateTime createdAt;
+}
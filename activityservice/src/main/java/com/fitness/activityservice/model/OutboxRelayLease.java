@@ -0,0 +1,27 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Lease that elects the one service instance allowed to relay the outbox.
+ * Held by {@code owner} until {@code lockedUntil}, renewed by the owner on every batch.
+ */
+@Document(collection = "outbox_relay_lease")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxRelayLease {
+
+    @Id
+    private String id;
+    private String owner;
+    private Instant lockedUntil;
+}
@@ -0,0 +1,41 @@
+package com.fitness.activityservice.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Length of the buckets activity statistics are rolled up into. Weeks start on Monday.
+ */
+public enum StatsPeriod {
+    DAY(ChronoUnit.DAYS),
+    WEEK(ChronoUnit.WEEKS);
+
+    private final ChronoUnit unit;
+
+    StatsPeriod(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Returns the first day of the bucket the given date falls into.
+     */
+    public LocalDate bucketStart(LocalDate date) {
+        return this == WEEK ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : date;
+    }
+
+    /**
+     * Returns the start of the bucket {@code amount} buckets after the given one, or before it when negative.
+     */
+    public LocalDate plus(LocalDate bucketStart, long amount) {
+        return bucketStart.plus(amount, unit);
+    }
+
+    /**
+     * Counts the buckets from the one containing {@code from} to the one containing {@code to}, both included.
+     */
+    public long bucketsBetween(LocalDate from, LocalDate to) {
+        return unit.between(bucketStart(from), bucketStart(to)) + 1;
+    }
+}
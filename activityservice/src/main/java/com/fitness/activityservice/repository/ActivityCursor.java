@@ -0,0 +1,40 @@
+package com.fitness.activityservice.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last activity returned in a page of a user's history, ordered by
+ * {@code startTime} then {@code id}, both descending.
+ *
+ * <p>Encoded as an opaque URL-safe token so that clients only ever pass it back unchanged.</p>
+ *
+ * @param startTime the start time of the last activity seen, may be {@code null}
+ * @param id        the id of the last activity seen
+ */
+public record ActivityCursor(LocalDateTime startTime, String id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = (startTime == null ? "" : startTime.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ActivityCursor decode(String cursor) {
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            String startTime = raw.substring(0, separatorIndex);
+            String id = raw.substring(separatorIndex + 1);
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Missing activity id");
+            }
+            return new ActivityCursor(startTime.isEmpty() ? null : LocalDateTime.parse(startTime), id);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
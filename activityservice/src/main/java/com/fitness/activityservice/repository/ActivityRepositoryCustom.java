@@ -0,0 +1,21 @@
+package com.fitness.activityservice.repository;
+
+import com.fitness.activityservice.model.Activity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ActivityRepositoryCustom {
+
+    /**
+     * Returns up to {@code limit} of a user's activities, newest first, strictly after the given cursor.
+     * @param userId the user whose activities to return
+     * @param from   inclusive lower bound on {@code startTime}, or {@code null}
+     * @param to     exclusive upper bound on {@code startTime}, or {@code null}
+     * @param after  the position of the last activity of the previous page, or {@code null} for the first page
+     * @param limit  the maximum number of activities to return
+     * @return the activities, ordered by {@code startTime} then {@code id}, both descending
+     */
+    List<Activity> findUserActivitiesPage(String userId, LocalDateTime from, LocalDateTime to,
+                                          ActivityCursor after, int limit);
+}
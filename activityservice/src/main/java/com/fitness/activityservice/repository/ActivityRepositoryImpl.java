@@ -0,0 +1,65 @@
+package com.fitness.activityservice.repository;
+
+import com.fitness.activityservice.model.Activity;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset pagination over a user's activities, served by the {@code userId, startTime, _id} index
+ * declared on {@link Activity}. Each page is a bounded index range scan regardless of how far into
+ * the history it is, unlike skip/offset paging.
+ */
+@RequiredArgsConstructor
+public class ActivityRepositoryImpl implements ActivityRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Activity> findUserActivitiesPage(String userId, LocalDateTime from, LocalDateTime to,
+                                                 ActivityCursor after, int limit) {
+
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(Criteria.where("userId").is(userId));
+        if (from != null) {
+            filters.add(Criteria.where("startTime").gte(from));
+        }
+        if (to != null) {
+            filters.add(Criteria.where("startTime").lt(to));
+        }
+        if (after != null) {
+            filters.add(after(after));
+        }
+
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(Sort.by(Sort.Direction.DESC, "startTime", "id"))
+                .limit(limit);
+
+        return mongoTemplate.find(query, Activity.class);
+    }
+
+    private Criteria after(ActivityCursor cursor) {
+
+        Object id = ObjectId.isValid(cursor.id()) ? new ObjectId(cursor.id()) : cursor.id();
+
+        //Activities without a start time sort last, so only ties on the id are left after one of them
+        if (cursor.startTime() == null) {
+            return new Criteria().andOperator(
+                    Criteria.where("startTime").is(null),
+                    Criteria.where("id").lt(id));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("startTime").lt(cursor.startTime()),
+                Criteria.where("startTime").is(null),
+                new Criteria().andOperator(
+                        Criteria.where("startTime").is(cursor.startTime()),
+                        Criteria.where("id").lt(id)));
+    }
+}
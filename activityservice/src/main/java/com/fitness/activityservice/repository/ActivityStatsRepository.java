@@ -0,0 +1,17 @@
+package com.fitness.activityservice.repository;
+
+import com.fitness.activityservice.model.ActivityStats;
+import com.fitness.activityservice.model.StatsPeriod;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ActivityStatsRepository extends MongoRepository<ActivityStats,String> {
+    List<ActivityStats> findByUserIdAndPeriodAndBucketStartBetween(String userId, StatsPeriod period,
+                                                                   Range<LocalDate> bucketStart, Sort sort);
+}
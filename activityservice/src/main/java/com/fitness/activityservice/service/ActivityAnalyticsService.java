@@ -0,0 +1,259 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityStreaksResponse;
+import com.fitness.activityservice.dto.ActivityTrendPoint;
+import com.fitness.activityservice.dto.ActivityTrendsResponse;
+import com.fitness.activityservice.dto.ActivityTypeBreakdown;
+import com.fitness.activityservice.model.Activity;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.MatchOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Activity trends computed inside Mongo with aggregation pipelines, so only the compact results
+ * leave the database instead of the user's activities.
+ *
+ * <p>Every pipeline starts with a {@code $match} on {@code userId} and a {@code startTime} range,
+ * served by the {@code userId, startTime, _id} index of {@link Activity}, and groups per day before
+ * any window function runs. Days are calendar days in the zone the service stores its
+ * {@code LocalDateTime}s in, and activities without a start time are not counted.
+ * Requires MongoDB 5.0 or later for {@code $setWindowFields}, {@code $dateTrunc} and {@code $dateSubtract}.</p>
+ */
+@Service
+public class ActivityAnalyticsService {
+
+    //LocalDateTimes are written as instants in the default zone, days are cut in that same zone
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final String MONGO_TIMEZONE = mongoTimezone(ZONE);
+
+    private final MongoTemplate mongoTemplate;
+    private final int defaultDays;
+    private final int maxDays;
+    private final int maxWindowDays;
+
+    public ActivityAnalyticsService(MongoTemplate mongoTemplate,
+                                    @Value("${activity.analytics.default-days:90}") int defaultDays,
+                                    @Value("${activity.analytics.max-days:366}") int maxDays,
+                                    @Value("${activity.analytics.max-window-days:90}") int maxWindowDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.defaultDays = defaultDays;
+        this.maxDays = maxDays;
+        this.maxWindowDays = maxWindowDays;
+    }
+
+    /**
+     * Returns a user's daily totals with moving averages of duration and calories.
+     *
+     * <p>The averages are per calendar day over the {@code windowDays} days ending on each point,
+     * rest days counting as zero. Activities before {@code from} are read as far back as the window
+     * reaches, so the first points are averaged over a full window too.</p>
+     * @param userId     the user
+     * @param from       the first day, or {@code null} for {@code activity.analytics.default-days} days before {@code to}
+     * @param to         the last day, or {@code null} for today
+     * @param windowDays the length of the moving average window in days
+     * @return one point per active day, oldest first
+     */
+    public ActivityTrendsResponse getTrends(String userId, LocalDate from, LocalDate to, int windowDays) {
+
+        if (windowDays < 1 || windowDays > maxWindowDays) {
+            throw new RuntimeException("Invalid window: " + windowDays + " days (1 to " + maxWindowDays + ")");
+        }
+        LocalDate lastDay = to != null ? to : LocalDate.now(ZONE);
+        LocalDate firstDay = from != null ? from : lastDay.minusDays(defaultDays - 1);
+        validateRange(firstDay, lastDay);
+
+        Document window = new Document("range", List.of(1 - windowDays, 0)).append("unit", "day");
+        Aggregation aggregation = Aggregation.newAggregation(
+                matchUserDays(userId, firstDay.minusDays(windowDays - 1), lastDay),
+                groupByDay(new Document("count", new Document("$sum", 1))
+                        .append("totalDuration", new Document("$sum", "$duration"))
+                        .append("totalCalories", new Document("$sum", "$caloriesBurned"))),
+                Aggregation.stage(new Document("$setWindowFields", new Document("sortBy", new Document("_id", 1))
+                        .append("output", new Document()
+                                .append("windowDuration", new Document("$sum", "$totalDuration").append("window", window))
+                                .append("windowCalories", new Document("$sum", "$totalCalories").append("window", window))))),
+                //Days before the range were only needed to fill the first windows
+                Aggregation.stage(new Document("$match", new Document("_id", new Document("$gte", toDate(firstDay))))),
+                Aggregation.stage(new Document("$sort", new Document("_id", 1))),
+                Aggregation.stage(new Document("$project", new Document("_id", 0)
+                        .append("date", "$_id")
+                        .append("count", 1)
+                        .append("totalDuration", 1)
+                        .append("totalCalories", 1)
+                        .append("movingAvgDuration", dailyAverage("$windowDuration", windowDays))
+                        .append("movingAvgCalories", dailyAverage("$windowCalories", windowDays)))));
+
+        List<ActivityTrendPoint> points = mongoTemplate.aggregate(aggregation, Activity.class, ActivityTrendPoint.class)
+                .getMappedResults();
+        return new ActivityTrendsResponse(firstDay, lastDay, windowDays, points);
+    }
+
+    /**
+     * Returns the longest and the current run of consecutive active days of a user.
+     *
+     * <p>Active days are numbered in order with {@code $documentNumber}; subtracting that number from
+     * the day gives the same date for every day of one run, which is then grouped on. Runs that started
+     * before {@code from} are only counted from {@code from} on.</p>
+     * @param userId the user
+     * @param from   the first day, or {@code null} for {@code activity.analytics.default-days} days before {@code to}
+     * @param to     the last day, or {@code null} for today
+     * @return the streaks
+     */
+    public ActivityStreaksResponse getStreaks(String userId, LocalDate from, LocalDate to) {
+
+        LocalDate lastDay = to != null ? to : LocalDate.now(ZONE);
+        LocalDate firstDay = from != null ? from : lastDay.minusDays(defaultDays - 1);
+        validateRange(firstDay, lastDay);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                matchUserDays(userId, firstDay, lastDay),
+                groupByDay(new Document()),
+                Aggregation.stage(new Document("$setWindowFields", new Document("sortBy", new Document("_id", 1))
+                        .append("output", new Document("dayNumber", new Document("$documentNumber", new Document()))))),
+                Aggregation.stage(new Document("$group", new Document("_id", new Document("$dateSubtract", new Document()
+                                .append("startDate", "$_id")
+                                .append("unit", "day")
+                                .append("amount", "$dayNumber")
+                                .append("timezone", MONGO_TIMEZONE)))
+                        .append("start", new Document("$min", "$_id"))
+                        .append("end", new Document("$max", "$_id"))
+                        .append("days", new Document("$sum", 1)))),
+                Aggregation.stage(new Document("$facet", new Document()
+                        .append("longest", List.of(
+                                new Document("$sort", new Document("days", -1).append("end", -1)),
+                                new Document("$limit", 1)))
+                        .append("latest", List.of(
+                                new Document("$sort", new Document("end", -1)),
+                                new Document("$limit", 1)))
+                        .append("activeDays", List.of(
+                                new Document("$group", new Document("_id", null).append("days", new Document("$sum", "$days"))))))));
+
+        Document result = mongoTemplate.aggregate(aggregation, Activity.class, Document.class).getUniqueMappedResult();
+        ActivityStreaksResponse.ActivityStreaksResponseBuilder streaks = ActivityStreaksResponse.builder()
+                .from(firstDay)
+                .to(lastDay);
+        if (result == null) {
+            return streaks.build();
+        }
+
+        Document longest = first(result, "longest");
+        Document latest = first(result, "latest");
+        Document activeDays = first(result, "activeDays");
+        if (longest != null) {
+            streaks.longestStreak(longest.get("days", Number.class).longValue())
+                    .longestStreakStart(toLocalDate(longest.getDate("start")))
+                    .longestStreakEnd(toLocalDate(longest.getDate("end")));
+        }
+        //A streak still counts as current on a day without activity yet
+        if (latest != null && !toLocalDate(latest.getDate("end")).isBefore(lastDay.minusDays(1))) {
+            streaks.currentStreak(latest.get("days", Number.class).longValue());
+        }
+        if (activeDays != null) {
+            streaks.activeDays(activeDays.get("days", Number.class).longValue());
+        }
+        return streaks.build();
+    }
+
+    /**
+     * Returns a user's totals and averages per activity type.
+     * @param userId the user
+     * @param from   the first day, or {@code null} for {@code activity.analytics.default-days} days before {@code to}
+     * @param to     the last day, or {@code null} for today
+     * @return one entry per activity type, most frequent first
+     */
+    public List<ActivityTypeBreakdown> getTypeBreakdown(String userId, LocalDate from, LocalDate to) {
+
+        LocalDate lastDay = to != null ? to : LocalDate.now(ZONE);
+        LocalDate firstDay = from != null ? from : lastDay.minusDays(defaultDays - 1);
+        validateRange(firstDay, lastDay);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                matchUserDays(userId, firstDay, lastDay),
+                Aggregation.stage(new Document("$group", new Document("_id", "$activityType")
+                        .append("count", new Document("$sum", 1))
+                        .append("totalDuration", new Document("$sum", "$duration"))
+                        .append("totalCalories", new Document("$sum", "$caloriesBurned"))
+                        .append("avgDuration", new Document("$avg", "$duration"))
+                        .append("avgCalories", new Document("$avg", "$caloriesBurned")))),
+                Aggregation.stage(new Document("$sort", new Document("count", -1).append("_id", 1))),
+                Aggregation.stage(new Document("$project", new Document("_id", 0)
+                        .append("activityType", "$_id")
+                        .append("count", 1)
+                        .append("totalDuration", 1)
+                        .append("totalCalories", 1)
+                        .append("avgDuration", new Document("$round", List.of("$avgDuration", 1)))
+                        .append("avgCalories", new Document("$round", List.of("$avgCalories", 1))))));
+
+        return mongoTemplate.aggregate(aggregation, Activity.class, ActivityTypeBreakdown.class).getMappedResults();
+    }
+
+    private void validateRange(LocalDate firstDay, LocalDate lastDay) {
+
+        if (firstDay.isAfter(lastDay)) {
+            throw new RuntimeException("Invalid analytics range: " + firstDay + " is after " + lastDay);
+        }
+        long days = ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+        if (days > maxDays) {
+            throw new RuntimeException("Analytics range too large: " + days + " days (max " + maxDays + ")");
+        }
+    }
+
+    /**
+     * Index friendly first stage: equality on userId, then a range on startTime.
+     */
+    private static MatchOperation matchUserDays(String userId, LocalDate firstDay, LocalDate lastDay) {
+        return Aggregation.match(Criteria.where("userId").is(userId)
+                .and("startTime").gte(toDate(firstDay)).lt(toDate(lastDay.plusDays(1))));
+    }
+
+    private static AggregationOperation groupByDay(Document accumulators) {
+
+        Document group = new Document("_id", new Document("$dateTrunc", new Document()
+                .append("date", "$startTime")
+                .append("unit", "day")
+                .append("timezone", MONGO_TIMEZONE)));
+        group.putAll(accumulators);
+        return Aggregation.stage(new Document("$group", group));
+    }
+
+    /**
+     * Mongo only takes Olson names and {@code ±HH:MM} offsets, not ids like {@code Z} or {@code UTC}.
+     */
+    static String mongoTimezone(ZoneId zone) {
+
+        if (!(zone.normalized() instanceof ZoneOffset offset)) {
+            return zone.getId();
+        }
+        int minutes = Math.abs(offset.getTotalSeconds()) / 60;
+        return String.format("%s%02d:%02d", offset.getTotalSeconds() < 0 ? "-" : "+", minutes / 60, minutes % 60);
+    }
+
+    private static Document dailyAverage(String windowTotal, int windowDays) {
+        return new Document("$round", List.of(new Document("$divide", List.of(windowTotal, windowDays)), 1));
+    }
+
+    private static Document first(Document result, String facet) {
+        List<Document> documents = result.getList(facet, Document.class);
+        return documents == null || documents.isEmpty() ? null : documents.get(0);
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZONE).toInstant());
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZONE).toLocalDate();
+    }
+}
@@ -0,0 +1,124 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.OutboxEvent;
+import com.fitness.activityservice.repository.ActivityRepository;
+import com.fitness.activityservice.repository.OutboxEventRepository;
+import com.mongodb.MongoException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Persists activities together with the outbox event that announces them to the AI service.
+ *
+ * <p>Both writes, and the increments of the user's {@link ActivityStatsService statistics}, happen in one
+ * Mongo transaction, so an activity is never saved without its event or its counts and no event is published
+ * for an activity that was not saved. Transactions that hit a transient error, such as a write conflict on a
+ * statistics bucket updated by a concurrent upload of the same user, are retried up to
+ * {@code outbox.transactions.max-attempts} times.</p>
+ *
+ * @see OutboxRelay
+ */
+@Service
+public class ActivityOutboxService {
+
+    private final ActivityRepository activityRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ActivityStatsService activityStatsService;
+    private final TransactionTemplate transactionTemplate;
+
+    //RabitMQ properties
+    @Value("${rabbitmq.exchange.name}")
+    private String exchange;
+    @Value("${rabbitmq.routing.key}")
+    private String routingKey;
+    @Value("${rabbitmq.bulk.routing-key:activity.tracking.bulk}")
+    private String bulkRoutingKey;
+    @Value("${outbox.transactions.max-attempts:3}")
+    private int maxTransactionAttempts;
+
+    public ActivityOutboxService(ActivityRepository activityRepository,
+                                 OutboxEventRepository outboxEventRepository,
+                                 ActivityStatsService activityStatsService,
+                                 MongoTransactionManager mongoTransactionManager) {
+        this.activityRepository = activityRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.activityStatsService = activityStatsService;
+        this.transactionTemplate = new TransactionTemplate(mongoTransactionManager);
+    }
+
+    /**
+     * Saves the activity, adds it to its user's statistics and queues its event for publishing on the interactive lane.
+     * @param activity the activity to save
+     * @return the saved activity
+     */
+    public Activity saveAndEnqueue(Activity activity) {
+
+        return inTransaction(() -> {
+            Activity savedActivity = activityRepository.save(activity);
+            outboxEventRepository.save(toOutboxEvent(savedActivity, routingKey));
+            activityStatsService.recordAll(List.of(savedActivity));
+            return savedActivity;
+        });
+    }
+
+    /**
+     * Saves the activities with bulk inserts, adds them to their users' statistics and queues one event per
+     * activity for publishing on the bulk lane.
+     * @param activities the activities to save
+     * @return the saved activities, in the same order
+     */
+    public List<Activity> saveAllAndEnqueue(List<Activity> activities) {
+
+        if (activities.isEmpty()) {
+            return List.of();
+        }
+        return inTransaction(() -> {
+            List<Activity> savedActivities = activityRepository.saveAll(activities);
+            //Bulk uploads and backfills go to their own lane so they never delay live uploads
+            outboxEventRepository.saveAll(savedActivities.stream()
+                    .map(savedActivity -> toOutboxEvent(savedActivity, bulkRoutingKey))
+                    .toList());
+            activityStatsService.recordAll(savedActivities);
+            return savedActivities;
+        });
+    }
+
+    private OutboxEvent toOutboxEvent(Activity activity, String routingKey) {
+        return OutboxEvent.builder()
+                .activityId(activity.getId())
+                .exchange(exchange)
+                .routingKey(routingKey)
+                .payload(activity)
+                .build();
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (attempt >= maxTransactionAttempts || !isTransientTransactionError(e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static boolean isTransientTransactionError(Throwable throwable) {
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,20 +1,25 @@
 package com.fitness.activityservice.service;
 
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.repository.ActivityCursor;
 import com.fitness.activityservice.repository.ActivityRepository;
 import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.dto.ActivityPageResponse;
 import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.dto.BulkActivityResponse;
+import com.fitness.activityservice.dto.BulkActivityResult;
 import com.fitness.activityservice.model.Activity;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 @Service
@@ -24,16 +29,13 @@ public class ActivityService {
 
     private final ActivityRepository activityRepository;
     private final UserValidationService userValidationService;
-    private final RabbitTemplate rabbitTemplate;
-
-    //RabitMQ properties
-    @Value("${rabbitmq.exchange.name}")
-    private String exchange;
-    @Value("${rabbitmq.routing.key}")
-    private String routingKey;
+    private final ActivityOutboxService activityOutboxService;
+    private final ActivityMapper activityMapper;
 
-    @Autowired
-    private ModelMapper modelMapper;
+    @Value("${activity.bulk.max-size:1000}")
+    private int maxBulkSize;
+    @Value("${activity.page.max-size:200}")
+    private int maxPageSize;
 
     public ActivityResponse trackActivity(ActivityRequest activityRequest) {
 
@@ -44,20 +46,72 @@ public class ActivityService {
             throw new RuntimeException("Invalid user: " + activityRequest.getUserId());
         }
 
-        Activity activity = modelMapper.map(activityRequest, Activity.class);
+        Activity activity = activityMapper.toActivity(activityRequest);
+
+
+        //Activity event is queued in the outbox and published to RabbitMQ for AI processing by the OutboxRelay
+        Activity savedActivity = activityOutboxService.saveAndEnqueue(activity);
 
+        return activityMapper.toResponse(savedActivity);
+    }
+
+    /**
+     * Tracks a batch of activities, e.g. from a wearable sync job.
+     *
+     * <p>Each distinct user is validated once per batch, all accepted activities are written with
+     * bulk inserts and their events are queued together in the outbox. Items for invalid users are
+     * rejected individually without failing the rest of the batch.</p>
+     *
+     * @param activityRequests the activities to track
+     * @return the per-item results, in request order
+     */
+    public BulkActivityResponse trackActivities(List<ActivityRequest> activityRequests) {
+
+        if (activityRequests.size() > maxBulkSize) {
+            throw new RuntimeException("Too many activities in one request: " + activityRequests.size()
+                    + " (max " + maxBulkSize + ")");
+        }
 
-        Activity savedActivity = activityRepository.save(activity);
+        Map<String, Boolean> validatedUsers = new HashMap<>();
+        List<BulkActivityResult> results = new ArrayList<>(activityRequests.size());
+        List<Activity> acceptedActivities = new ArrayList<>();
+        List<BulkActivityResult> acceptedResults = new ArrayList<>();
+
+        for (int i = 0; i < activityRequests.size(); i++) {
+            ActivityRequest activityRequest = activityRequests.get(i);
+            String userId = activityRequest.getUserId();
+
+            BulkActivityResult result = BulkActivityResult.builder().index(i).build();
+            results.add(result);
+
+            if (userId == null || !validatedUsers.computeIfAbsent(userId, this::isValidUser)) {
+                result.setStatus(BulkActivityResult.Status.REJECTED);
+                result.setError("Invalid user: " + userId);
+                continue;
+            }
+            acceptedActivities.add(activityMapper.toActivity(activityRequest));
+            acceptedResults.add(result);
+        }
 
-        //Publish to RabbitMQ for AI processing
-        try{
-            rabbitTemplate.convertAndSend(exchange, routingKey, savedActivity);
-        } catch (Exception e) {
-            log.error("Failed to publish activity to RabbitMQ: ",e);
+        List<Activity> savedActivities = activityOutboxService.saveAllAndEnqueue(acceptedActivities);
+        for (int i = 0; i < savedActivities.size(); i++) {
+            BulkActivityResult result = acceptedResults.get(i);
+            result.setStatus(BulkActivityResult.Status.SAVED);
+            result.setActivity(activityMapper.toResponse(savedActivities.get(i)));
         }
 
+        return new BulkActivityResponse(acceptedResults.size(),
+                results.size() - acceptedResults.size(),
+                results);
+    }
 
-        return modelMapper.map(savedActivity, ActivityResponse.class);
+    private boolean isValidUser(String userId) {
+        try {
+            return userValidationService.validateUser(userId);
+        } catch (RuntimeException e) {
+            log.warn("Rejecting activities for user {}: {}", userId, e.getMessage());
+            return false;
+        }
     }
 
     public List<ActivityResponse> getUserActivities(String userId) {
@@ -65,14 +119,47 @@ public class ActivityService {
         List<Activity> userActivities = activityRepository.findByUserId(userId);
 
         return userActivities.stream()
-                .map(activity -> modelMapper.map(activity, ActivityResponse.class))
+                .map(activityMapper::toResponse)
                 .toList();
     }
 
+    /**
+     * Returns one page of a user's activities, newest first, optionally restricted to a time range.
+     * @param userId the user whose activities to return
+     * @param from   inclusive lower bound on the start time, or {@code null}
+     * @param to     exclusive upper bound on the start time, or {@code null}
+     * @param cursor the {@code nextCursor} of the previous page, or {@code null} for the first page
+     * @param limit  the requested page size, capped at {@code activity.page.max-size}
+     * @return the page and the cursor to the next one
+     */
+    public ActivityPageResponse getUserActivitiesPage(String userId, LocalDateTime from, LocalDateTime to,
+                                                      String cursor, int limit) {
+
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        ActivityCursor after = cursor == null || cursor.isBlank() ? null : ActivityCursor.decode(cursor);
+
+        //Fetch one extra activity to know whether another page follows without a count query
+        List<Activity> userActivities = activityRepository.findUserActivitiesPage(userId, from, to, after, pageSize + 1);
+
+        boolean hasMore = userActivities.size() > pageSize;
+        List<Activity> page = hasMore ? userActivities.subList(0, pageSize) : userActivities;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Activity last = page.get(page.size() - 1);
+            nextCursor = new ActivityCursor(last.getStartTime(), last.getId()).encode();
+        }
+
+        return new ActivityPageResponse(
+                page.stream().map(activityMapper::toResponse).toList(),
+                nextCursor,
+                hasMore);
+    }
+
     public ActivityResponse getActivityById(String activityId) {
 
         return activityRepository.findById(activityId)
-                .map(activity -> modelMapper.map(activity, ActivityResponse.class))
+                .map(activityMapper::toResponse)
                 .orElseThrow(() ->
                         new RuntimeException("Invalid activity.Activity not found with id: " + activityId));
     }
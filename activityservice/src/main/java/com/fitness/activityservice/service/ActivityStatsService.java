@@ -0,0 +1,165 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityStatsEntry;
+import com.fitness.activityservice.dto.ActivityStatsResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityStats;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.StatsPeriod;
+import com.fitness.activityservice.repository.ActivityStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps per-user daily and weekly activity totals up to date as activities are tracked, and serves them.
+ *
+ * <p>Every tracked activity adds to its day and week bucket with an {@code $inc} upsert, so the totals
+ * never need to be recomputed from the activity history. The increments are written in the transaction that
+ * saves the activities, see {@link ActivityOutboxService}, so the totals cannot drift from the activities.
+ * Activities are bucketed by start time, or by creation time when they have none.</p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityStatsService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ActivityStatsRepository activityStatsRepository;
+
+    @Value("${activity.stats.max-buckets:400}")
+    private int maxBuckets;
+    @Value("${activity.stats.default-buckets:12}")
+    private int defaultBuckets;
+
+    /**
+     * Adds saved activities to the statistics of their users, in the caller's transaction if there is one.
+     * @param activities the saved activities
+     */
+    public void recordAll(List<Activity> activities) {
+
+        //Activities of one upload mostly share a few buckets, so their increments are summed before writing
+        Map<BucketKey, Totals> increments = new HashMap<>();
+        for (Activity activity : activities) {
+            if (activity.getUserId() == null) {
+                continue;
+            }
+            LocalDate date = activityDate(activity);
+            ActivityType activityType = activity.getActivityType() != null ? activity.getActivityType() : ActivityType.OTHER;
+            for (StatsPeriod period : StatsPeriod.values()) {
+                increments.computeIfAbsent(new BucketKey(activity.getUserId(), period, period.bucketStart(date), activityType),
+                        key -> new Totals()).add(activity);
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityStats.class);
+        increments.forEach((key, totals) -> bulkOperations.upsert(
+                Query.query(Criteria.where("userId").is(key.userId())
+                        .and("period").is(key.period())
+                        .and("bucketStart").is(key.bucketStart())
+                        .and("activityType").is(key.activityType())),
+                new Update()
+                        .inc("count", totals.count)
+                        .inc("totalDuration", totals.duration)
+                        .inc("totalCalories", totals.calories)
+                        .currentDate("updatedAt")));
+        bulkOperations.execute();
+    }
+
+    /**
+     * Returns a user's statistics for the buckets between two dates.
+     * @param userId the user
+     * @param period day or week buckets
+     * @param from   a date in the first bucket, or {@code null} for {@code activity.stats.default-buckets} buckets before {@code to}
+     * @param to     a date in the last bucket, or {@code null} for today
+     * @return the non-empty buckets, oldest first, and the totals per activity type over the range
+     */
+    public ActivityStatsResponse getUserStats(String userId, StatsPeriod period, LocalDate from, LocalDate to) {
+
+        LocalDate lastBucket = period.bucketStart(to != null ? to : LocalDate.now());
+        LocalDate firstBucket = from != null ? period.bucketStart(from) : period.plus(lastBucket, 1 - defaultBuckets);
+
+        if (firstBucket.isAfter(lastBucket)) {
+            throw new RuntimeException("Invalid stats range: " + from + " is after " + to);
+        }
+        long buckets = period.bucketsBetween(firstBucket, lastBucket);
+        if (buckets > maxBuckets) {
+            throw new RuntimeException("Stats range too large: " + buckets + " " + period + " buckets (max " + maxBuckets + ")");
+        }
+
+        List<ActivityStats> stats = activityStatsRepository.findByUserIdAndPeriodAndBucketStartBetween(userId, period,
+                Range.closed(firstBucket, lastBucket), Sort.by("bucketStart", "activityType"));
+
+        Map<ActivityType, Totals> totals = new EnumMap<>(ActivityType.class);
+        for (ActivityStats bucket : stats) {
+            totals.computeIfAbsent(bucket.getActivityType(), type -> new Totals()).add(bucket);
+        }
+
+        return new ActivityStatsResponse(period, firstBucket, lastBucket,
+                stats.stream()
+                        .map(bucket -> ActivityStatsEntry.builder()
+                                .bucketStart(bucket.getBucketStart())
+                                .activityType(bucket.getActivityType())
+                                .count(bucket.getCount())
+                                .totalDuration(bucket.getTotalDuration())
+                                .totalCalories(bucket.getTotalCalories())
+                                .build())
+                        .toList(),
+                totals.entrySet().stream()
+                        .map(entry -> ActivityStatsEntry.builder()
+                                .activityType(entry.getKey())
+                                .count(entry.getValue().count)
+                                .totalDuration(entry.getValue().duration)
+                                .totalCalories(entry.getValue().calories)
+                                .build())
+                        .toList());
+    }
+
+    private static LocalDate activityDate(Activity activity) {
+
+        if (activity.getStartTime() != null) {
+            return activity.getStartTime().toLocalDate();
+        }
+        return (activity.getCreatedAt() != null ? activity.getCreatedAt() : LocalDateTime.now()).toLocalDate();
+    }
+
+    private record BucketKey(String userId, StatsPeriod period, LocalDate bucketStart, ActivityType activityType) {
+    }
+
+    private static final class Totals {
+
+        private long count;
+        private long duration;
+        private long calories;
+
+        private void add(Activity activity) {
+            count++;
+            duration += activity.getDuration() != null ? activity.getDuration() : 0;
+            calories += activity.getCaloriesBurned() != null ? activity.getCaloriesBurned() : 0;
+        }
+
+        private void add(ActivityStats stats) {
+            count += stats.getCount();
+            duration += stats.getTotalDuration();
+            calories += stats.getTotalCalories();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.OutboxEvent;
+import com.fitness.activityservice.model.OutboxRelayLease;
+import com.fitness.activityservice.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Background relay that drains the activity outbox to RabbitMQ.
+ *
+ * <p>Events are published in batches on a single channel and only removed from the outbox once
+ * the broker has confirmed the whole batch, so delivery is at-least-once: a failed or unconfirmed
+ * batch stays in the outbox and is retried on the next run. Events for the interactive lane are
+ * relayed before those for the bulk lane.</p>
+ *
+ * <p>When a batch fails its events are published one by one, so a single event that keeps failing
+ * does not hold back the ones behind it. A failed event is left out of the following batches until its
+ * backoff has passed, starting at {@code outbox.relay.initial-backoff-ms} and doubling per attempt up to
+ * {@code outbox.relay.max-backoff-ms}, and is moved to {@value #PARKED_COLLECTION} after
+ * {@code outbox.relay.max-attempts} failures. An unreachable broker does not count as a failure.</p>
+ *
+ * <p>Only the instance holding the lease in {@code outbox_relay_lease} relays, the others skip their runs
+ * until it expires. An owner that stalls longer than {@code outbox.relay.lease-ms} may have its last batch
+ * published again by the next owner, which the AI service drops as duplicates.</p>
+ *
+ * <p>Requires {@code spring.rabbitmq.publisher-confirm-type: simple}.</p>
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+
+    public static final String PARKED_COLLECTION = "activity_outbox_parked";
+    static final String LEASE_ID = "activity-outbox-relay";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final String routingKey;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       RabbitTemplate rabbitTemplate,
+                       MongoTemplate mongoTemplate,
+                       @Value("${rabbitmq.routing.key}") String routingKey,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                       @Value("${outbox.relay.max-attempts:5}") int maxAttempts,
+                       @Value("${outbox.relay.initial-backoff-ms:1000}") long initialBackoffMs,
+                       @Value("${outbox.relay.max-backoff-ms:300000}") long maxBackoffMs,
+                       @Value("${outbox.relay.lease-ms:30000}") long leaseMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.routingKey = routingKey;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.lease = Duration.ofMillis(leaseMs);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relay() {
+
+        while (acquireLease()) {
+            List<OutboxEvent> batch = nextBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                send(batch);
+                log.debug("Relayed {} activity events to RabbitMQ", batch.size());
+                outboxEventRepository.deleteAllById(batch.stream().map(OutboxEvent::getId).toList());
+            } catch (AmqpConnectException e) {
+                log.error("RabbitMQ unavailable, will retry {} activity events: {}", batch.size(), e.getMessage());
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to relay {} activity events as a batch, publishing them one by one: {}",
+                        batch.size(), e.getMessage());
+                if (!publishIndividually(batch)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    //Interactive events jump ahead of any bulk backlog, bulk events are only relayed when none are waiting
+    private List<OutboxEvent> nextBatch() {
+
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = mongoTemplate.find(dueEvents(Criteria.where("routingKey").is(routingKey), now), OutboxEvent.class);
+        return batch.isEmpty() ? mongoTemplate.find(dueEvents(new Criteria(), now), OutboxEvent.class) : batch;
+    }
+
+    /**
+     * Oldest events first, leaving out those still backing off from a failed attempt.
+     */
+    private Query dueEvents(Criteria criteria, Instant now) {
+        return Query.query(criteria.orOperator(
+                        Criteria.where("nextAttemptAt").is(null),
+                        Criteria.where("nextAttemptAt").lte(now)))
+                .with(Sort.by("createdAt"))
+                .limit(batchSize);
+    }
+
+    /**
+     * Publishes the events of a failed batch on their own and records a failed attempt for those that fail again.
+     * @return whether any event got through, so the relay can go on with the next batch
+     */
+    private boolean publishIndividually(List<OutboxEvent> batch) {
+
+        List<String> published = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            try {
+                send(List.of(event));
+                published.add(event.getId());
+            } catch (AmqpConnectException e) {
+                log.error("RabbitMQ unavailable, will retry activity events: {}", e.getMessage());
+                break;
+            } catch (Exception e) {
+                recordFailure(event, e);
+            }
+        }
+        if (!published.isEmpty()) {
+            outboxEventRepository.deleteAllById(published);
+        }
+        return !published.isEmpty();
+    }
+
+    private void recordFailure(OutboxEvent event, Exception e) {
+
+        event.setAttempts(event.getAttempts() + 1);
+        if (event.getAttempts() < maxAttempts) {
+            Duration backoff = backoff(event.getAttempts());
+            log.warn("Failed to relay event for activity {} (attempt {} of {}), retrying in {}: {}",
+                    event.getActivityId(), event.getAttempts(), maxAttempts, backoff, e.getMessage());
+            event.setNextAttemptAt(Instant.now().plus(backoff));
+            outboxEventRepository.save(event);
+            return;
+        }
+        log.error("Parking event for activity {} in {} after {} failed attempts: ",
+                event.getActivityId(), PARKED_COLLECTION, event.getAttempts(), e);
+        mongoTemplate.save(event, PARKED_COLLECTION);
+        outboxEventRepository.deleteById(event.getId());
+    }
+
+    //initial-backoff doubled for every attempt after the first, capped at max-backoff
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private void send(List<OutboxEvent> events) {
+
+        rabbitTemplate.invoke(operations -> {
+            events.forEach(event ->
+                    operations.convertAndSend(event.getExchange(), event.getRoutingKey(), event.getPayload()));
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+    }
+
+    /**
+     * Takes or renews the relay lease with a single findAndModify.
+     * @return whether this instance holds the lease
+     */
+    private boolean acquireLease() {
+
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("id").is(LEASE_ID)
+                .orOperator(Criteria.where("lockedUntil").lt(now), Criteria.where("owner").is(instanceId)));
+        Update update = new Update()
+                .set("owner", instanceId)
+                .set("lockedUntil", now.plus(lease));
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), OutboxRelayLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            //The lease document exists and another instance still holds it
+            return false;
+        }
+    }
+}
@@ -1,30 +1,75 @@
 package com.fitness.activityservice.service;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.time.Duration;
+
+/**
+ * Validates users against USER-SERVICE, keeping a bounded near-cache of the answers so that
+ * repeat writes from the same user skip the network hop.
+ *
+ * <p>Positive results are kept for {@code user.validation.cache.positive-ttl}, negative results
+ * only for the much shorter {@code user.validation.cache.negative-ttl} so that a user who is
+ * registered by the gateway shortly after a failed write is picked up quickly. Errors other than
+ * a definitive answer from USER-SERVICE are never cached.</p>
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class UserValidationService {
 
     private final WebClient userServiceWebClient;
+    private final Cache<String, Boolean> validationCache;
+
+    @Autowired
+    public UserValidationService(WebClient userServiceWebClient,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${user.validation.cache.max-size:10000}") long maxSize,
+                                 @Value("${user.validation.cache.positive-ttl:10m}") Duration positiveTtl,
+                                 @Value("${user.validation.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this(userServiceWebClient, meterRegistry, maxSize, positiveTtl, negativeTtl, Ticker.systemTicker());
+    }
+
+    UserValidationService(WebClient userServiceWebClient, MeterRegistry meterRegistry, long maxSize,
+                          Duration positiveTtl, Duration negativeTtl, Ticker ticker) {
+        this.userServiceWebClient = userServiceWebClient;
+        this.validationCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .ticker(ticker)
+                .expireAfter(new ValidationExpiry(positiveTtl, negativeTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validationCache, "userValidationCache");
+    }
 
     public boolean validateUser(String userId) {
 
+        Boolean cached = validationCache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
         log.info("Calling validate user for userId {} ", userId);
 
         try {
-            return Boolean.TRUE.equals(userServiceWebClient.get()
+            boolean isValid = Boolean.TRUE.equals(userServiceWebClient.get()
                     .uri("/api/users/{userId}/validate", userId)
                     .retrieve()
                     .bodyToMono(Boolean.class)
                     .block());
+            validationCache.put(userId, isValid);
+            return isValid;
         } catch (WebClientResponseException e) {
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
                 throw new RuntimeException("User not found: " + userId);
@@ -35,4 +80,24 @@ public class UserValidationService {
         return false;
     }
 
+    /**
+     * Expires positive and negative validation results after their own TTLs.
+     */
+    private record ValidationExpiry(Duration positiveTtl, Duration negativeTtl) implements Expiry<String, Boolean> {
+
+        @Override
+        public long expireAfterCreate(String userId, Boolean isValid, long currentTime) {
+            return isValid ? positiveTtl.toNanos() : negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String userId, Boolean isValid, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, isValid, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String userId, Boolean isValid, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,168 @@
+package com.fitness.activityservice.benchmark;
+
+import com.fitness.activityservice.dto.ActivityStreaksResponse;
+import com.fitness.activityservice.dto.ActivityTrendsResponse;
+import com.fitness.activityservice.dto.ActivityTypeBreakdown;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.service.ActivityAnalyticsService;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ActivityAnalyticsService} pipelines over a synthetic dataset of one million
+ * activities (1000 users with 1000 activities each, spread over three years), against loading a
+ * user's activities and computing the type breakdown in the application as before.
+ *
+ * <p>Needs a MongoDB 5.0+ at {@code -Dbenchmark.mongodb.uri} (default {@code mongodb://localhost:27017}).
+ * The dataset is written to the {@code fitness_benchmark} database on the first run and reused afterwards.
+ * Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.fitness.activityservice.benchmark.ActivityAnalyticsBenchmark -Dexec.classpathScope=test}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ActivityAnalyticsBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int ACTIVITIES_PER_USER = 1000;
+    private static final int HISTORY_DAYS = 3 * 365;
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private ActivityAnalyticsService activityAnalyticsService;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup
+    public void setUp() {
+        mongoClient = MongoClients.create(System.getProperty("benchmark.mongodb.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new MongoTemplate(mongoClient, "fitness_benchmark");
+        activityAnalyticsService = new ActivityAnalyticsService(mongoTemplate, 90, 366, 90);
+
+        //Same index the service declares on Activity
+        mongoTemplate.indexOps(Activity.class).createIndex(new CompoundIndexDefinition(
+                new Document("userId", 1).append("startTime", -1).append("_id", -1)).named("userId_startTime_id"));
+
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Activity.class));
+        if (collection.countDocuments() != (long) USERS * ACTIVITIES_PER_USER) {
+            collection.deleteMany(new Document());
+            seed(collection);
+        }
+
+        to = LocalDate.now(ZONE);
+        from = to.minusDays(365);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public ActivityTrendsResponse trendsPipeline() {
+        return activityAnalyticsService.getTrends(randomUser(), from, to, 7);
+    }
+
+    @Benchmark
+    public ActivityStreaksResponse streaksPipeline() {
+        return activityAnalyticsService.getStreaks(randomUser(), from, to);
+    }
+
+    @Benchmark
+    public List<ActivityTypeBreakdown> typeBreakdownPipeline() {
+        return activityAnalyticsService.getTypeBreakdown(randomUser(), from, to);
+    }
+
+    @Benchmark
+    public Map<ActivityType, long[]> typeBreakdownInApplication() {
+        //Every activity of the range is read and mapped before being summed up
+        List<Activity> activities = mongoTemplate.find(Query.query(Criteria.where("userId").is(randomUser())
+                .and("startTime").gte(toDate(from)).lt(toDate(to.plusDays(1)))), Activity.class);
+
+        Map<ActivityType, long[]> totals = new EnumMap<>(ActivityType.class);
+        for (Activity activity : activities) {
+            long[] typeTotals = totals.computeIfAbsent(activity.getActivityType(), type -> new long[3]);
+            typeTotals[0]++;
+            typeTotals[1] += activity.getDuration();
+            typeTotals[2] += activity.getCaloriesBurned();
+        }
+        return totals;
+    }
+
+    private static void seed(MongoCollection<Document> collection) {
+
+        Random random = new Random(42);
+        ActivityType[] activityTypes = ActivityType.values();
+        LocalDate today = LocalDate.now(ZONE);
+        List<Document> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+
+        for (int user = 0; user < USERS; user++) {
+            for (int i = 0; i < ACTIVITIES_PER_USER; i++) {
+                int duration = 15 + random.nextInt(90);
+                Date startTime = Date.from(today.minusDays(random.nextInt(HISTORY_DAYS))
+                        .atTime(6 + random.nextInt(14), random.nextInt(60)).atZone(ZONE).toInstant());
+                batch.add(new Document("userId", userId(user))
+                        .append("activityType", activityTypes[random.nextInt(activityTypes.length)].name())
+                        .append("duration", duration)
+                        .append("caloriesBurned", duration * (5 + random.nextInt(8)))
+                        .append("startTime", startTime)
+                        .append("metrics", new Document("avgHeartRate", 110 + random.nextInt(60)))
+                        .append("createdAt", startTime)
+                        .append("updatedAt", startTime));
+                if (batch.size() == INSERT_BATCH_SIZE) {
+                    collection.insertMany(batch, new InsertManyOptions().ordered(false));
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch, new InsertManyOptions().ordered(false));
+        }
+    }
+
+    private static String randomUser() {
+        return userId(ThreadLocalRandom.current().nextInt(USERS));
+    }
+
+    private static String userId(int user) {
+        return "benchmark-user-" + user;
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZONE).toInstant());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ActivityAnalyticsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+package com.fitness.activityservice.benchmark;
+
+import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand written {@link ActivityMapper} with the ModelMapper setup it replaced.
+ *
+ * <p>Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.fitness.activityservice.benchmark.ActivityMapperBenchmark -Dexec.classpathScope=test}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ActivityMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private ActivityMapper activityMapper;
+    private ActivityRequest activityRequest;
+    private Activity activity;
+
+    @Setup
+    public void setUp() {
+        //Same configuration the service used before the explicit mapper
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+        activityMapper = new ActivityMapper();
+
+        activityRequest = new ActivityRequest();
+        activityRequest.setUserId("3f0c2b9e-6d0a-4a57-9d1b-8f1e2c3d4b5a");
+        activityRequest.setActivityType(ActivityType.RUNNING);
+        activityRequest.setDuration(45);
+        activityRequest.setCaloriesBurned(520);
+        activityRequest.setStartTime(LocalDateTime.of(2024, 5, 1, 7, 30));
+        activityRequest.setAdditionalMetrics(Map.of("distanceKm", 8.2, "avgHeartRate", 152, "elevationGain", 64));
+
+        activity = activityMapper.toActivity(activityRequest);
+        activity.setId("663a1f2e9b1e8a4d2c3b4a59");
+        activity.setCreatedAt(LocalDateTime.of(2024, 5, 1, 8, 20));
+        activity.setUpdatedAt(LocalDateTime.of(2024, 5, 1, 8, 20));
+    }
+
+    @Benchmark
+    public Activity modelMapperRequestToActivity() {
+        return modelMapper.map(activityRequest, Activity.class);
+    }
+
+    @Benchmark
+    public Activity explicitRequestToActivity() {
+        return activityMapper.toActivity(activityRequest);
+    }
+
+    @Benchmark
+    public ActivityResponse modelMapperActivityToResponse() {
+        return modelMapper.map(activity, ActivityResponse.class);
+    }
+
+    @Benchmark
+    public ActivityResponse explicitActivityToResponse() {
+        return activityMapper.toResponse(activity);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ActivityMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
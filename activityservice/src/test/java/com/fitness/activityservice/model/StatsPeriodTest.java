@@ -0,0 +1,50 @@
+package com.fitness.activityservice.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsPeriodTest {
+
+    @Test
+    @DisplayName("Should bucket every day of a week on its Monday")
+    void shouldBucketWeekOnMonday() {
+        // Given
+        LocalDate monday = LocalDate.of(2024, 5, 6);
+
+        // When / Then
+        for (int day = 0; day < 7; day++) {
+            assertEquals(monday, StatsPeriod.WEEK.bucketStart(monday.plusDays(day)));
+        }
+        assertEquals(monday.plusWeeks(1), StatsPeriod.WEEK.bucketStart(monday.plusDays(7)));
+    }
+
+    @Test
+    @DisplayName("Should bucket a day on itself")
+    void shouldBucketDayOnItself() {
+        // Given
+        LocalDate date = LocalDate.of(2024, 5, 9);
+
+        // When
+        LocalDate bucketStart = StatsPeriod.DAY.bucketStart(date);
+
+        // Then
+        assertEquals(date, bucketStart);
+    }
+
+    @Test
+    @DisplayName("Should count both the first and the last bucket of a range")
+    void shouldCountBucketsInclusive() {
+        // Given
+        LocalDate from = LocalDate.of(2024, 5, 8);
+        LocalDate to = LocalDate.of(2024, 5, 20);
+
+        // When / Then
+        assertEquals(13, StatsPeriod.DAY.bucketsBetween(from, to));
+        assertEquals(3, StatsPeriod.WEEK.bucketsBetween(from, to));
+        assertEquals(1, StatsPeriod.WEEK.bucketsBetween(from, from));
+    }
+}
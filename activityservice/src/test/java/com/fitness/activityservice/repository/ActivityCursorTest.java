@@ -0,0 +1,60 @@
+package com.fitness.activityservice.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityCursorTest {
+
+    @Test
+    @DisplayName("Should decode an encoded cursor back to the same position")
+    void shouldRoundTrip_WhenStartTimePresent() {
+        // Given
+        ActivityCursor cursor = new ActivityCursor(LocalDateTime.of(2024, 5, 1, 7, 30, 15), "663a1f2e9b1e8a4d2c3b4a59");
+
+        // When
+        ActivityCursor decoded = ActivityCursor.decode(cursor.encode());
+
+        // Then
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    @DisplayName("Should round trip a cursor for an activity without start time")
+    void shouldRoundTrip_WhenStartTimeMissing() {
+        // Given
+        ActivityCursor cursor = new ActivityCursor(null, "663a1f2e9b1e8a4d2c3b4a59");
+
+        // When
+        ActivityCursor decoded = ActivityCursor.decode(cursor.encode());
+
+        // Then
+        assertNull(decoded.startTime());
+        assertEquals("663a1f2e9b1e8a4d2c3b4a59", decoded.id());
+    }
+
+    @Test
+    @DisplayName("Should produce a URL safe token")
+    void shouldEncodeUrlSafe() {
+        // Given
+        ActivityCursor cursor = new ActivityCursor(LocalDateTime.of(2024, 12, 31, 23, 59), "abc?/+=");
+
+        // When
+        String encoded = cursor.encode();
+
+        // Then
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    @DisplayName("Should throw exception when cursor is not valid")
+    void shouldThrowException_WhenCursorInvalid() {
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> ActivityCursor.decode("not a cursor"));
+
+        assertTrue(exception.getMessage().startsWith("Invalid cursor"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityStreaksResponse;
+import com.fitness.activityservice.dto.ActivityTrendPoint;
+import com.fitness.activityservice.dto.ActivityTrendsResponse;
+import com.fitness.activityservice.model.Activity;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityAnalyticsServiceTest {
+
+    private static final LocalDate TO = LocalDate.of(2026, 3, 31);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private ActivityAnalyticsService activityAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        activityAnalyticsService = new ActivityAnalyticsService(mongoTemplate, 90, 366, 90);
+    }
+
+    @Test
+    @DisplayName("Should reject a reversed or too large range before querying")
+    void shouldRejectInvalidRange() {
+        // When & Then
+        assertThrows(RuntimeException.class, () -> activityAnalyticsService.getStreaks("user-1", TO, TO.minusDays(1)));
+        assertThrows(RuntimeException.class, () -> activityAnalyticsService.getStreaks("user-1", TO.minusDays(366), TO));
+        assertThrows(RuntimeException.class, () -> activityAnalyticsService.getTypeBreakdown("user-1", TO, TO.minusDays(1)));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Should reject a moving average window outside its bounds")
+    void shouldRejectInvalidWindow() {
+        // When & Then
+        assertThrows(RuntimeException.class, () -> activityAnalyticsService.getTrends("user-1", null, TO, 0));
+        assertThrows(RuntimeException.class, () -> activityAnalyticsService.getTrends("user-1", null, TO, 91));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Should read back as far as the first window reaches and up to the end of the last day")
+    void shouldMatchWindowBounds_WhenComputingTrends() {
+        // Given: the longest range and window allowed
+        LocalDate from = TO.minusDays(365);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Activity.class), eq(ActivityTrendPoint.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // When
+        ActivityTrendsResponse response = activityAnalyticsService.getTrends("user-1", from, TO, 90);
+
+        // Then
+        assertEquals(from, response.getFrom());
+        assertEquals(TO, response.getTo());
+        ArgumentCaptor<Aggregation> aggregationCaptor = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregationCaptor.capture(), eq(Activity.class), eq(ActivityTrendPoint.class));
+        Document startTime = firstMatch(aggregationCaptor.getValue()).get("startTime", Document.class);
+        assertEquals(toDate(from.minusDays(89)), startTime.get("$gte"));
+        assertEquals(toDate(TO.plusDays(1)), startTime.get("$lt"));
+    }
+
+    @Test
+    @DisplayName("Should default to the configured number of days ending on the given day")
+    void shouldDefaultRange_WhenFromIsMissing() {
+        // Given
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Activity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // When
+        ActivityStreaksResponse response = activityAnalyticsService.getStreaks("user-1", null, TO);
+
+        // Then
+        assertEquals(TO.minusDays(89), response.getFrom());
+        assertEquals(TO, response.getTo());
+        assertEquals(0, response.getLongestStreak());
+    }
+
+    @Test
+    @DisplayName("Should report no streaks when the user had no active day")
+    void shouldReturnEmptyStreaks_WhenFacetsAreEmpty() {
+        // Given
+        stubStreaks(new Document("longest", List.of()).append("latest", List.of()).append("activeDays", List.of()));
+
+        // When
+        ActivityStreaksResponse response = activityAnalyticsService.getStreaks("user-1", TO.minusDays(29), TO);
+
+        // Then
+        assertEquals(0, response.getActiveDays());
+        assertEquals(0, response.getLongestStreak());
+        assertNull(response.getLongestStreakStart());
+        assertEquals(0, response.getCurrentStreak());
+    }
+
+    @Test
+    @DisplayName("Should keep a streak current when its last active day was yesterday")
+    void shouldCountCurrentStreak_WhenLastActiveDayWasYesterday() {
+        // Given
+        stubStreaks(streaks(run(TO.minusDays(10), TO.minusDays(6)), run(TO.minusDays(3), TO.minusDays(1)), 8));
+
+        // When
+        ActivityStreaksResponse response = activityAnalyticsService.getStreaks("user-1", TO.minusDays(29), TO);
+
+        // Then
+        assertEquals(8, response.getActiveDays());
+        assertEquals(5, response.getLongestStreak());
+        assertEquals(TO.minusDays(10), response.getLongestStreakStart());
+        assertEquals(TO.minusDays(6), response.getLongestStreakEnd());
+        assertEquals(3, response.getCurrentStreak());
+    }
+
+    @Test
+    @DisplayName("Should end the current streak once a full day passed without activity")
+    void shouldNotCountCurrentStreak_WhenLastActiveDayWasTwoDaysAgo() {
+        // Given
+        stubStreaks(streaks(run(TO.minusDays(4), TO.minusDays(2)), run(TO.minusDays(4), TO.minusDays(2)), 3));
+
+        // When
+        ActivityStreaksResponse response = activityAnalyticsService.getStreaks("user-1", TO.minusDays(29), TO);
+
+        // Then
+        assertEquals(3, response.getLongestStreak());
+        assertEquals(0, response.getCurrentStreak());
+    }
+
+    @Test
+    @DisplayName("Should give Mongo an Olson name or a +HH:MM offset as timezone")
+    void shouldNormalizeTimezone_ForMongo() {
+        // When & Then
+        assertEquals("+00:00", ActivityAnalyticsService.mongoTimezone(ZoneOffset.UTC));
+        assertEquals("+00:00", ActivityAnalyticsService.mongoTimezone(ZoneId.of("UTC")));
+        assertEquals("+05:30", ActivityAnalyticsService.mongoTimezone(ZoneOffset.ofHoursMinutes(5, 30)));
+        assertEquals("-03:30", ActivityAnalyticsService.mongoTimezone(ZoneOffset.ofHoursMinutes(-3, -30)));
+        assertEquals("+02:00", ActivityAnalyticsService.mongoTimezone(ZoneId.of("GMT+2")));
+        assertEquals("Europe/Berlin", ActivityAnalyticsService.mongoTimezone(ZoneId.of("Europe/Berlin")));
+    }
+
+    private void stubStreaks(Document result) {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Activity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(result), new Document()));
+    }
+
+    private static Document streaks(Document longest, Document latest, long activeDays) {
+        return new Document("longest", List.of(longest))
+                .append("latest", List.of(latest))
+                .append("activeDays", List.of(new Document("_id", null).append("days", activeDays)));
+    }
+
+    //One run of consecutive active days as grouped by the pipeline
+    private static Document run(LocalDate start, LocalDate end) {
+        return new Document("start", toDate(start))
+                .append("end", toDate(end))
+                .append("days", (int) (end.toEpochDay() - start.toEpochDay() + 1));
+    }
+
+    private static Document firstMatch(Aggregation aggregation) {
+        return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$match", Document.class);
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,161 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.OutboxEvent;
+import com.fitness.activityservice.repository.ActivityRepository;
+import com.fitness.activityservice.repository.OutboxEventRepository;
+import com.mongodb.MongoException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityOutboxServiceTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private ActivityStatsService activityStatsService;
+    @Mock
+    private MongoTransactionManager mongoTransactionManager;
+
+    private ActivityOutboxService activityOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        activityOutboxService = new ActivityOutboxService(activityRepository, outboxEventRepository,
+                activityStatsService, mongoTransactionManager);
+        ReflectionTestUtils.setField(activityOutboxService, "exchange", "fitness.exchange");
+        ReflectionTestUtils.setField(activityOutboxService, "routingKey", "activity.tracking");
+        ReflectionTestUtils.setField(activityOutboxService, "bulkRoutingKey", "activity.tracking.bulk");
+        ReflectionTestUtils.setField(activityOutboxService, "maxTransactionAttempts", 3);
+    }
+
+    @Test
+    @DisplayName("Should save the activity, its stats and its interactive event in one transaction")
+    void shouldSaveActivityAndEvent_InOneTransaction() {
+        // Given
+        Activity activity = activity(null);
+        Activity savedActivity = activity("activity-1");
+        when(activityRepository.save(activity)).thenReturn(savedActivity);
+
+        // When
+        Activity result = activityOutboxService.saveAndEnqueue(activity);
+
+        // Then
+        assertSame(savedActivity, result);
+        ArgumentCaptor<OutboxEvent> eventCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(eventCaptor.capture());
+        assertEquals("activity-1", eventCaptor.getValue().getActivityId());
+        assertEquals("fitness.exchange", eventCaptor.getValue().getExchange());
+        assertEquals("activity.tracking", eventCaptor.getValue().getRoutingKey());
+        verify(activityStatsService).recordAll(List.of(savedActivity));
+        verify(mongoTransactionManager).getTransaction(any());
+        verify(mongoTransactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should queue bulk uploads on the bulk lane")
+    @SuppressWarnings("unchecked")
+    void shouldUseBulkLane_WhenSavingBatch() {
+        // Given
+        List<Activity> activities = List.of(activity(null), activity(null));
+        List<Activity> savedActivities = List.of(activity("activity-1"), activity("activity-2"));
+        when(activityRepository.saveAll(activities)).thenReturn(savedActivities);
+
+        // When
+        List<Activity> result = activityOutboxService.saveAllAndEnqueue(activities);
+
+        // Then
+        assertEquals(2, result.size());
+        ArgumentCaptor<List<OutboxEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).saveAll(eventsCaptor.capture());
+        assertEquals(List.of("activity-1", "activity-2"),
+                eventsCaptor.getValue().stream().map(OutboxEvent::getActivityId).toList());
+        assertTrue(eventsCaptor.getValue().stream().allMatch(event -> "activity.tracking.bulk".equals(event.getRoutingKey())));
+        verify(activityStatsService).recordAll(savedActivities);
+    }
+
+    @Test
+    @DisplayName("Should roll back the activity and its event when the stats cannot be updated")
+    void shouldRollBack_WhenStatsUpdateFails() {
+        // Given
+        Activity activity = activity(null);
+        when(activityRepository.save(activity)).thenReturn(activity("activity-1"));
+        doThrow(new MongoException("disk full")).when(activityStatsService).recordAll(any());
+
+        // When / Then
+        assertThrows(MongoException.class, () -> activityOutboxService.saveAndEnqueue(activity));
+        verify(mongoTransactionManager).rollback(any());
+        verify(mongoTransactionManager, never()).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should retry the transaction after a transient transaction error")
+    void shouldRetry_WhenTransactionErrorIsTransient() {
+        // Given
+        Activity activity = activity(null);
+        MongoException writeConflict = new MongoException(112, "WriteConflict");
+        writeConflict.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        when(activityRepository.save(activity)).thenThrow(writeConflict).thenReturn(activity("activity-1"));
+
+        // When
+        Activity result = activityOutboxService.saveAndEnqueue(activity);
+
+        // Then
+        assertEquals("activity-1", result.getId());
+        verify(mongoTransactionManager).rollback(any());
+        verify(mongoTransactionManager).commit(any());
+        verify(outboxEventRepository, times(1)).save(any(OutboxEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should not save the event when the activity cannot be saved")
+    void shouldFailWithoutEvent_WhenErrorIsNotTransient() {
+        // Given
+        Activity activity = activity(null);
+        when(activityRepository.save(activity)).thenThrow(new MongoException("disk full"));
+
+        // When / Then
+        assertThrows(MongoException.class, () -> activityOutboxService.saveAndEnqueue(activity));
+        verify(activityRepository, times(1)).save(activity);
+        verifyNoInteractions(outboxEventRepository, activityStatsService);
+        verify(mongoTransactionManager).rollback(any());
+    }
+
+    @Test
+    @DisplayName("Should skip the transaction for an empty batch")
+    void shouldDoNothing_WhenBatchIsEmpty() {
+        // When
+        List<Activity> result = activityOutboxService.saveAllAndEnqueue(List.of());
+
+        // Then
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(activityRepository, outboxEventRepository, activityStatsService, mongoTransactionManager);
+    }
+
+    private static Activity activity(String id) {
+        return Activity.builder()
+                .id(id)
+                .userId("user-1")
+                .activityType(ActivityType.RUNNING)
+                .duration(30)
+                .caloriesBurned(300)
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityRequest;
+import com.fitness.activityservice.dto.BulkActivityResponse;
+import com.fitness.activityservice.dto.BulkActivityResult;
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.repository.ActivityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityServiceTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+    @Mock
+    private UserValidationService userValidationService;
+    @Mock
+    private ActivityOutboxService activityOutboxService;
+
+    private ActivityService activityService;
+
+    @BeforeEach
+    void setUp() {
+        activityService = new ActivityService(activityRepository, userValidationService, activityOutboxService,
+                new ActivityMapper());
+        ReflectionTestUtils.setField(activityService, "maxBulkSize", 3);
+    }
+
+    @Test
+    @DisplayName("Should return a SAVED or REJECTED result per item in request order")
+    void shouldReturnResultsInRequestOrder_WhenSomeUsersAreInvalid() {
+        // Given
+        when(userValidationService.validateUser("user-1")).thenReturn(true);
+        when(userValidationService.validateUser("user-2")).thenReturn(false);
+        saveWithIds();
+
+        // When
+        BulkActivityResponse response = activityService.trackActivities(List.of(
+                request("user-1", 30), request("user-2", 45), request("user-1", 60)));
+
+        // Then
+        assertEquals(2, response.getSaved());
+        assertEquals(1, response.getRejected());
+        List<BulkActivityResult> results = response.getResults();
+        assertEquals(List.of(0, 1, 2), results.stream().map(BulkActivityResult::getIndex).toList());
+        assertEquals(BulkActivityResult.Status.SAVED, results.get(0).getStatus());
+        assertEquals(30, results.get(0).getActivity().getDuration());
+        assertEquals(BulkActivityResult.Status.REJECTED, results.get(1).getStatus());
+        assertEquals("Invalid user: user-2", results.get(1).getError());
+        assertNull(results.get(1).getActivity());
+        assertEquals(BulkActivityResult.Status.SAVED, results.get(2).getStatus());
+        assertEquals(60, results.get(2).getActivity().getDuration());
+        assertNotEquals(results.get(0).getActivity().getId(), results.get(2).getActivity().getId());
+    }
+
+    @Test
+    @DisplayName("Should validate each user once per batch")
+    void shouldValidateEachUserOnce_PerBatch() {
+        // Given
+        when(userValidationService.validateUser(any())).thenReturn(true);
+        saveWithIds();
+
+        // When
+        activityService.trackActivities(List.of(request("user-1", 30), request("user-2", 45), request("user-1", 60)));
+
+        // Then
+        verify(userValidationService, times(1)).validateUser("user-1");
+        verify(userValidationService, times(1)).validateUser("user-2");
+        verify(activityOutboxService, times(1)).saveAllAndEnqueue(anyList());
+    }
+
+    @Test
+    @DisplayName("Should reject the items of a user whose validation fails without failing the batch")
+    void shouldRejectUserItems_WhenValidationThrows() {
+        // Given
+        when(userValidationService.validateUser("user-1")).thenThrow(new RuntimeException("user-service down"));
+        when(userValidationService.validateUser("user-2")).thenReturn(true);
+        saveWithIds();
+
+        // When
+        BulkActivityResponse response = activityService.trackActivities(List.of(
+                request("user-1", 30), request("user-2", 45), request(null, 60)));
+
+        // Then
+        assertEquals(1, response.getSaved());
+        assertEquals(BulkActivityResult.Status.REJECTED, response.getResults().get(0).getStatus());
+        assertEquals(BulkActivityResult.Status.SAVED, response.getResults().get(1).getStatus());
+        assertEquals(BulkActivityResult.Status.REJECTED, response.getResults().get(2).getStatus());
+        verify(userValidationService, never()).validateUser(null);
+    }
+
+    @Test
+    @DisplayName("Should reject an oversize batch before validating or writing anything")
+    void shouldRejectBatch_WhenLargerThanMaxBulkSize() {
+        // Given
+        List<ActivityRequest> requests = Collections.nCopies(4, request("user-1", 30));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> activityService.trackActivities(requests));
+        assertEquals("Too many activities in one request: 4 (max 3)", exception.getMessage());
+        verifyNoInteractions(userValidationService, activityOutboxService, activityRepository);
+    }
+
+    //Saves the accepted activities in order, giving each one an id
+    private void saveWithIds() {
+        when(activityOutboxService.saveAllAndEnqueue(anyList())).thenAnswer(invocation -> {
+            List<Activity> activities = invocation.getArgument(0);
+            List<Activity> saved = new ArrayList<>(activities.size());
+            for (int i = 0; i < activities.size(); i++) {
+                Activity activity = activities.get(i);
+                activity.setId("activity-" + i);
+                saved.add(activity);
+            }
+            return saved;
+        });
+    }
+
+    private static ActivityRequest request(String userId, int duration) {
+        ActivityRequest activityRequest = new ActivityRequest();
+        activityRequest.setUserId(userId);
+        activityRequest.setActivityType(ActivityType.RUNNING);
+        activityRequest.setDuration(duration);
+        activityRequest.setCaloriesBurned(duration * 10);
+        activityRequest.setStartTime(LocalDateTime.of(2026, 3, 4, 7, 0));
+        return activityRequest;
+    }
+}
@@ -0,0 +1,211 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityStatsEntry;
+import com.fitness.activityservice.dto.ActivityStatsResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityStats;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.StatsPeriod;
+import com.fitness.activityservice.repository.ActivityStatsRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityStatsServiceTest {
+
+    //A Wednesday, its week starts on Monday 2026-03-02
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 4);
+    private static final LocalDate WEEK = LocalDate.of(2026, 3, 2);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private ActivityStatsRepository activityStatsRepository;
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private ActivityStatsService activityStatsService;
+
+    @BeforeEach
+    void setUp() {
+        activityStatsService = new ActivityStatsService(mongoTemplate, activityStatsRepository);
+        ReflectionTestUtils.setField(activityStatsService, "maxBuckets", 400);
+        ReflectionTestUtils.setField(activityStatsService, "defaultBuckets", 12);
+    }
+
+    @Test
+    @DisplayName("Should sum the activities of one bucket into a single upsert per period")
+    void shouldSumIncrements_PerBucket() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityStats.class)).thenReturn(bulkOperations);
+        List<Activity> activities = List.of(
+                activity("user-1", ActivityType.RUNNING, DAY.atTime(7, 0), 30, 300),
+                activity("user-1", ActivityType.RUNNING, DAY.atTime(18, 0), 45, 450),
+                activity("user-1", ActivityType.CYCLING, DAY.atTime(12, 0), 60, 500));
+
+        // When
+        activityStatsService.recordAll(activities);
+
+        // Then
+        Map<String, Document> increments = capturedIncrements(4);
+        assertEquals(new Document("count", 2L).append("totalDuration", 75L).append("totalCalories", 750L),
+                increments.get("user-1 DAY " + DAY + " RUNNING"));
+        assertEquals(new Document("count", 2L).append("totalDuration", 75L).append("totalCalories", 750L),
+                increments.get("user-1 WEEK " + WEEK + " RUNNING"));
+        assertEquals(new Document("count", 1L).append("totalDuration", 60L).append("totalCalories", 500L),
+                increments.get("user-1 DAY " + DAY + " CYCLING"));
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    @DisplayName("Should bucket activities without a start time by creation time and missing types as OTHER")
+    void shouldUseCreatedAtAndOther_WhenFieldsMissing() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityStats.class)).thenReturn(bulkOperations);
+        Activity activity = activity("user-1", null, null, null, null);
+        activity.setCreatedAt(DAY.atTime(9, 0));
+
+        // When
+        activityStatsService.recordAll(List.of(activity));
+
+        // Then
+        Map<String, Document> increments = capturedIncrements(2);
+        assertEquals(new Document("count", 1L).append("totalDuration", 0L).append("totalCalories", 0L),
+                increments.get("user-1 DAY " + DAY + " OTHER"));
+        assertTrue(increments.containsKey("user-1 WEEK " + WEEK + " OTHER"));
+    }
+
+    @Test
+    @DisplayName("Should write nothing when no activity has a user")
+    void shouldSkipWrite_WhenNoActivityHasUser() {
+        // When
+        activityStatsService.recordAll(List.of(activity(null, ActivityType.RUNNING, DAY.atTime(7, 0), 30, 300)));
+
+        // Then
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Should return the buckets of the range with totals per activity type")
+    void shouldReturnBucketsAndTotals() {
+        // Given
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        when(activityStatsRepository.findByUserIdAndPeriodAndBucketStartBetween(eq("user-1"), eq(StatsPeriod.DAY),
+                eq(Range.closed(from, DAY)), any(Sort.class)))
+                .thenReturn(List.of(
+                        bucket(LocalDate.of(2026, 3, 2), ActivityType.RUNNING, 1, 30, 300),
+                        bucket(LocalDate.of(2026, 3, 3), ActivityType.CYCLING, 2, 90, 800),
+                        bucket(DAY, ActivityType.RUNNING, 2, 75, 750)));
+
+        // When
+        ActivityStatsResponse response = activityStatsService.getUserStats("user-1", StatsPeriod.DAY, from, DAY);
+
+        // Then
+        assertEquals(from, response.getFrom());
+        assertEquals(DAY, response.getTo());
+        assertEquals(3, response.getBuckets().size());
+        assertEquals(LocalDate.of(2026, 3, 2), response.getBuckets().get(0).getBucketStart());
+        Map<ActivityType, ActivityStatsEntry> totals = new HashMap<>();
+        response.getTotals().forEach(entry -> totals.put(entry.getActivityType(), entry));
+        assertEquals(3, totals.get(ActivityType.RUNNING).getCount());
+        assertEquals(105, totals.get(ActivityType.RUNNING).getTotalDuration());
+        assertEquals(1050, totals.get(ActivityType.RUNNING).getTotalCalories());
+        assertEquals(2, totals.get(ActivityType.CYCLING).getCount());
+        assertNull(totals.get(ActivityType.RUNNING).getBucketStart());
+    }
+
+    @Test
+    @DisplayName("Should default to the last buckets and align dates to week starts")
+    void shouldDefaultRange_WhenFromIsMissing() {
+        // Given
+        when(activityStatsRepository.findByUserIdAndPeriodAndBucketStartBetween(any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        // When
+        ActivityStatsResponse response = activityStatsService.getUserStats("user-1", StatsPeriod.WEEK, null, DAY);
+
+        // Then: twelve weeks, the last one starting on the Monday of DAY
+        assertEquals(WEEK, response.getTo());
+        assertEquals(WEEK.minusWeeks(11), response.getFrom());
+        verify(activityStatsRepository).findByUserIdAndPeriodAndBucketStartBetween(eq("user-1"), eq(StatsPeriod.WEEK),
+                eq(Range.closed(WEEK.minusWeeks(11), WEEK)), any(Sort.class));
+        assertTrue(response.getBuckets().isEmpty());
+        assertTrue(response.getTotals().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a reversed or too large range")
+    void shouldRejectInvalidRange() {
+        // When & Then
+        assertThrows(RuntimeException.class,
+                () -> activityStatsService.getUserStats("user-1", StatsPeriod.DAY, DAY, DAY.minusDays(1)));
+        assertThrows(RuntimeException.class,
+                () -> activityStatsService.getUserStats("user-1", StatsPeriod.DAY, DAY.minusDays(400), DAY));
+        verifyNoInteractions(activityStatsRepository);
+    }
+
+    //Increments of the captured upserts, keyed by "userId period bucketStart activityType"
+    private Map<String, Document> capturedIncrements(int upserts) {
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(upserts)).upsert(queryCaptor.capture(), updateCaptor.capture());
+
+        Map<String, Document> increments = new HashMap<>();
+        for (int i = 0; i < upserts; i++) {
+            Document query = queryCaptor.getAllValues().get(i).getQueryObject();
+            increments.put(query.get("userId") + " " + query.get("period") + " " + query.get("bucketStart")
+                            + " " + query.get("activityType"),
+                    updateCaptor.getAllValues().get(i).getUpdateObject().get("$inc", Document.class));
+        }
+        return increments;
+    }
+
+    private static Activity activity(String userId, ActivityType activityType, LocalDateTime startTime,
+                                     Integer duration, Integer calories) {
+        return Activity.builder()
+                .userId(userId)
+                .activityType(activityType)
+                .startTime(startTime)
+                .duration(duration)
+                .caloriesBurned(calories)
+                .build();
+    }
+
+    private static ActivityStats bucket(LocalDate bucketStart, ActivityType activityType, long count,
+                                        long duration, long calories) {
+        return ActivityStats.builder()
+                .userId("user-1")
+                .period(StatsPeriod.DAY)
+                .bucketStart(bucketStart)
+                .activityType(activityType)
+                .count(count)
+                .totalDuration(duration)
+                .totalCalories(calories)
+                .build();
+    }
+}
@@ -0,0 +1,219 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.OutboxEvent;
+import com.fitness.activityservice.model.OutboxRelayLease;
+import com.fitness.activityservice.repository.OutboxEventRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.net.ConnectException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    private static final String EXCHANGE = "fitness.exchange";
+    private static final String ROUTING_KEY = "activity.tracking";
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+    @Mock
+    private RabbitOperations rabbitOperations;
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, rabbitTemplate, mongoTemplate,
+                ROUTING_KEY, 100, 5000, 3, 1000, 300000, 30000);
+    }
+
+    @Test
+    @DisplayName("Should delete a confirmed batch with a single delete")
+    void shouldDeleteBatchById_WhenBatchIsConfirmed() {
+        // Given
+        holdLease();
+        publishThroughOperations();
+        OutboxEvent first = event("event-1", 0);
+        OutboxEvent second = event("event-2", 0);
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class)))
+                .thenReturn(List.of(first, second), List.of(), List.of());
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        verify(rabbitOperations).convertAndSend(EXCHANGE, ROUTING_KEY, first.getPayload());
+        verify(rabbitOperations).convertAndSend(EXCHANGE, ROUTING_KEY, second.getPayload());
+        verify(outboxEventRepository).deleteAllById(List.of("event-1", "event-2"));
+        verify(outboxEventRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    @DisplayName("Should relay the events behind an event that keeps failing and back it off")
+    void shouldPublishIndividually_WhenBatchFails() {
+        // Given
+        holdLease();
+        publishThroughOperations();
+        OutboxEvent poison = event("event-1", 0);
+        OutboxEvent healthy = event("event-2", 0);
+        doThrow(new AmqpException("nack")).when(rabbitOperations).convertAndSend(EXCHANGE, ROUTING_KEY, poison.getPayload());
+        //The backed off event is left out of the next queries
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class)))
+                .thenReturn(List.of(poison, healthy), List.of(), List.of());
+        Instant before = Instant.now();
+
+        // When
+        outboxRelay.relay();
+
+        // Then: a single attempt per run
+        verify(outboxEventRepository).deleteAllById(List.of("event-2"));
+        verify(outboxEventRepository, times(1)).save(poison);
+        assertEquals(1, poison.getAttempts());
+        assertFalse(poison.getNextAttemptAt().isBefore(before.plusMillis(1000)));
+        verify(outboxEventRepository, never()).deleteById("event-1");
+    }
+
+    @Test
+    @DisplayName("Should only query events whose backoff has passed")
+    void shouldSkipBackedOffEvents_WhenFetchingBatch() {
+        // Given
+        holdLease();
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(List.of());
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(OutboxEvent.class));
+        Document interactive = queryCaptor.getAllValues().get(0).getQueryObject();
+        assertEquals(ROUTING_KEY, interactive.get("routingKey"));
+        assertEquals(2, interactive.getList("$or", Document.class).size());
+        assertFalse(queryCaptor.getAllValues().get(1).getQueryObject().containsKey("routingKey"));
+        assertEquals(100, queryCaptor.getAllValues().get(1).getLimit());
+    }
+
+    @Test
+    @DisplayName("Should double the backoff with every failed attempt")
+    void shouldDoubleBackoff_WhenEventFailsAgain() {
+        // Given
+        holdLease();
+        publishThroughOperations();
+        OutboxEvent poison = event("event-1", 1);
+        doThrow(new AmqpException("nack")).when(rabbitOperations).convertAndSend(EXCHANGE, ROUTING_KEY, poison.getPayload());
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(List.of(poison));
+        Instant before = Instant.now();
+
+        // When
+        outboxRelay.relay();
+
+        // Then: no event got through, so the run stops after the first batch
+        assertEquals(2, poison.getAttempts());
+        assertFalse(poison.getNextAttemptAt().isBefore(before.plusMillis(2000)));
+        assertTrue(poison.getNextAttemptAt().isBefore(before.plusMillis(4000)));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(OutboxEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should park an event once it reaches the maximum attempts")
+    void shouldParkEvent_WhenMaxAttemptsReached() {
+        // Given
+        holdLease();
+        publishThroughOperations();
+        OutboxEvent poison = event("event-1", 2);
+        doThrow(new AmqpException("nack")).when(rabbitOperations).convertAndSend(EXCHANGE, ROUTING_KEY, poison.getPayload());
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(List.of(poison));
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        assertEquals(3, poison.getAttempts());
+        verify(mongoTemplate).save(poison, OutboxRelay.PARKED_COLLECTION);
+        verify(outboxEventRepository).deleteById("event-1");
+        verify(outboxEventRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should not count attempts while RabbitMQ is unreachable")
+    void shouldKeepEvents_WhenBrokerIsUnreachable() {
+        // Given
+        holdLease();
+        OutboxEvent event = event("event-1", 0);
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(List.of(event));
+        when(rabbitTemplate.invoke(any())).thenThrow(new AmqpConnectException(new ConnectException("refused")));
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        assertEquals(0, event.getAttempts());
+        assertNull(event.getNextAttemptAt());
+        verify(rabbitTemplate, times(1)).invoke(any());
+        verify(outboxEventRepository, never()).save(any());
+        verify(outboxEventRepository, never()).deleteAllById(any());
+    }
+
+    @Test
+    @DisplayName("Should not relay while another instance holds the lease")
+    void shouldSkipRun_WhenLeaseIsHeldElsewhere() {
+        // Given
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(OutboxRelayLease.class))).thenThrow(new DuplicateKeyException("lease held"));
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        verify(mongoTemplate, never()).find(any(Query.class), eq(OutboxEvent.class));
+        verifyNoInteractions(outboxEventRepository, rabbitTemplate);
+    }
+
+    private void holdLease() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(OutboxRelayLease.class))).thenReturn(new OutboxRelayLease());
+    }
+
+    private void publishThroughOperations() {
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitOperations));
+    }
+
+    private static OutboxEvent event(String id, int attempts) {
+        return OutboxEvent.builder()
+                .id(id)
+                .activityId("activity-" + id)
+                .exchange(EXCHANGE)
+                .routingKey(ROUTING_KEY)
+                .payload(Activity.builder().id("activity-" + id).userId("user-1").build())
+                .attempts(attempts)
+                .build();
+    }
+}
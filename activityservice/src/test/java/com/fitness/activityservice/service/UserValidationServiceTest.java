@@ -0,0 +1,149 @@
+package com.fitness.activityservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserValidationServiceTest {
+
+    private static final Duration POSITIVE_TTL = Duration.ofMinutes(10);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    //Paths of the validate calls received by the stubbed user-service
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    //Response the stubbed user-service gives to the next validate call
+    private final AtomicReference<Mono<ClientResponse>> validateResponse = new AtomicReference<>();
+    private final AtomicLong nanos = new AtomicLong();
+    private UserValidationService userValidationService;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://user-service")
+                .exchangeFunction(this::exchange)
+                .build();
+        userValidationService = new UserValidationService(webClient, new SimpleMeterRegistry(), 100,
+                POSITIVE_TTL, NEGATIVE_TTL, nanos::get);
+    }
+
+    @Test
+    @DisplayName("Should cache a valid user for the positive TTL")
+    void shouldCacheValidUser_ForPositiveTtl() {
+        // Given
+        validateResponse.set(json(HttpStatus.OK, "true"));
+        assertTrue(userValidationService.validateUser("user-1"));
+
+        // When
+        advance(POSITIVE_TTL.minusSeconds(1));
+        boolean cached = userValidationService.validateUser("user-1");
+        advance(Duration.ofSeconds(2));
+        boolean reloaded = userValidationService.validateUser("user-1");
+
+        // Then
+        assertTrue(cached);
+        assertTrue(reloaded);
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    @DisplayName("Should cache an unknown user only for the shorter negative TTL")
+    void shouldCacheInvalidUser_ForNegativeTtl() {
+        // Given
+        validateResponse.set(json(HttpStatus.OK, "false"));
+        assertFalse(userValidationService.validateUser("user-1"));
+
+        // When
+        advance(NEGATIVE_TTL.minusSeconds(1));
+        boolean cached = userValidationService.validateUser("user-1");
+        advance(Duration.ofSeconds(2));
+        validateResponse.set(json(HttpStatus.OK, "true"));
+        boolean registered = userValidationService.validateUser("user-1");
+
+        // Then: the user registered meanwhile is picked up long before the positive TTL
+        assertFalse(cached);
+        assertTrue(registered);
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    @DisplayName("Should not cache the answer to a user-service error")
+    void shouldNotCache_WhenUserServiceFails() {
+        // Given
+        validateResponse.set(json(HttpStatus.SERVICE_UNAVAILABLE, "{}"));
+        assertFalse(userValidationService.validateUser("user-1"));
+
+        // When
+        validateResponse.set(json(HttpStatus.OK, "true"));
+        boolean isValid = userValidationService.validateUser("user-1");
+
+        // Then
+        assertTrue(isValid);
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    @DisplayName("Should not cache a failed call to user-service")
+    void shouldNotCache_WhenUserServiceIsUnreachable() {
+        // Given
+        validateResponse.set(Mono.error(new IOException("Connection refused")));
+        assertThrows(RuntimeException.class, () -> userValidationService.validateUser("user-1"));
+
+        // When
+        validateResponse.set(json(HttpStatus.OK, "true"));
+        boolean isValid = userValidationService.validateUser("user-1");
+
+        // Then
+        assertTrue(isValid);
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    @DisplayName("Should reject a user user-service does not know without caching it")
+    void shouldThrowAndNotCache_WhenUserIsNotFound() {
+        // Given
+        validateResponse.set(json(HttpStatus.NOT_FOUND, "{}"));
+
+        // When
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> userValidationService.validateUser("user-1"));
+        validateResponse.set(json(HttpStatus.OK, "true"));
+
+        // Then
+        assertEquals("User not found: user-1", exception.getMessage());
+        assertTrue(userValidationService.validateUser("user-1"));
+        assertEquals(List.of("/api/users/user-1/validate", "/api/users/user-1/validate"), requests);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request) {
+        requests.add(request.url().getPath());
+        return validateResponse.get();
+    }
+
+    private static Mono<ClientResponse> json(HttpStatus status, String body) {
+        return Mono.fromSupplier(() -> ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+}
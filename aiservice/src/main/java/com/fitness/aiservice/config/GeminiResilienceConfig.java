@@ -0,0 +1,160 @@
+package com.fitness.aiservice.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRateLimiterMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Resilience policies applied to every Gemini call by {@link com.fitness.aiservice.service.GeminiService}.
+ *
+ * <p>All instances are named {@value #GEMINI} and their state is exported through Micrometer
+ * under the standard {@code resilience4j.*} meters.</p>
+ */
+@Configuration
+public class GeminiResilienceConfig {
+
+    public static final String GEMINI = "gemini";
+
+    //Rate limiter properties, sized to the Gemini API quota
+    @Value("${ai.llm.rate-limit.requests-per-minute:60}")
+    private int requestsPerMinute;
+    @Value("${ai.llm.rate-limit.max-wait:30s}")
+    private Duration rateLimitMaxWait;
+
+    //Bulkhead properties
+    @Value("${ai.llm.max-in-flight:8}")
+    private int maxInFlight;
+    @Value("${ai.llm.bulkhead.max-wait:5m}")
+    private Duration bulkheadMaxWait;
+
+    //Time limiter and retry properties
+    @Value("${ai.llm.timeout:30s}")
+    private Duration timeout;
+    @Value("${ai.llm.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+    @Value("${ai.llm.retry.initial-backoff:1s}")
+    private Duration retryInitialBackoff;
+    @Value("${ai.llm.retry.multiplier:2.0}")
+    private double retryMultiplier;
+    @Value("${ai.llm.retry.jitter:0.5}")
+    private double retryJitter;
+
+    //Circuit breaker properties
+    @Value("${ai.llm.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+    @Value("${ai.llm.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+    @Value("${ai.llm.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+    @Value("${ai.llm.circuit-breaker.open-duration:30s}")
+    private Duration openDuration;
+
+    //Limits calls per minute. Permits refill at the start of every period, callers wait up to max-wait for one.
+    @Bean
+    public RateLimiter geminiRateLimiter(MeterRegistry meterRegistry){
+        RateLimiterRegistry registry = RateLimiterRegistry.of(rateLimiterConfig(requestsPerMinute, rateLimitMaxWait));
+        TaggedRateLimiterMetrics.ofRateLimiterRegistry(registry).bindTo(meterRegistry);
+        return registry.rateLimiter(GEMINI);
+    }
+
+    //Caps concurrent calls. Callers wait for a slot, keeping their message unacknowledged as backpressure.
+    @Bean
+    public Bulkhead geminiBulkhead(MeterRegistry meterRegistry){
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxInFlight)
+                .maxWaitDuration(bulkheadMaxWait)
+                .fairCallHandlingStrategyEnabled(true)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(GEMINI);
+    }
+
+    @Bean
+    public TimeLimiter geminiTimeLimiter(MeterRegistry meterRegistry){
+        TimeLimiterRegistry registry = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+                .timeoutDuration(timeout)
+                .build());
+        TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(registry).bindTo(meterRegistry);
+        return registry.timeLimiter(GEMINI);
+    }
+
+    //Retries throttled (429), failed (5xx), unreachable and timed out calls with exponential, jittered backoff
+    @Bean
+    public Retry geminiRetry(MeterRegistry meterRegistry){
+        RetryRegistry registry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(retryMaxAttempts)
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(retryInitialBackoff, retryMultiplier, retryJitter))
+                .retryOnException(GeminiResilienceConfig::isTransient)
+                .build());
+        TaggedRetryMetrics.ofRetryRegistry(registry).bindTo(meterRegistry);
+        return registry.retry(GEMINI);
+    }
+
+    //Opens when too many calls fail, so callers go straight to the fallback recommendation until Gemini recovers
+    @Bean
+    public CircuitBreaker geminiCircuitBreaker(MeterRegistry meterRegistry){
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordException(GeminiResilienceConfig::isTransient)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(GEMINI);
+    }
+
+    /**
+     * Spreads the per minute quota over short periods, so a backlog cannot spend the whole minute's permits
+     * in one burst at the start of it.
+     * @return one second periods holding a sixtieth of the quota, or one permit per period when the quota
+     * does not split into whole permits per second
+     */
+    static RateLimiterConfig rateLimiterConfig(int requestsPerMinute, Duration maxWait) {
+        boolean wholePermitsPerSecond = requestsPerMinute >= 60 && requestsPerMinute % 60 == 0;
+        return RateLimiterConfig.custom()
+                .limitForPeriod(wholePermitsPerSecond ? requestsPerMinute / 60 : 1)
+                .limitRefreshPeriod(wholePermitsPerSecond
+                        ? Duration.ofSeconds(1)
+                        : Duration.ofMinutes(1).dividedBy(requestsPerMinute))
+                .timeoutDuration(maxWait)
+                .build();
+    }
+
+    static boolean isTransient(Throwable throwable) {
+        Throwable cause = Exceptions.unwrap(throwable);
+        if (cause instanceof WebClientResponseException e) {
+            return e.getStatusCode().value() == 429 || e.getStatusCode().is5xxServerError();
+        }
+        return cause instanceof WebClientRequestException || cause instanceof TimeoutException;
+    }
+}
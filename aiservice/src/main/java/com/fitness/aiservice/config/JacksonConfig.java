@@ -0,0 +1,20 @@
+package com.fitness.aiservice.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    //Shared, thread safe mapper for Gemini responses. Built once instead of on every parsed response.
+    //Unknown fields are ignored since the model may add fields we do not use.
+    @Bean
+    public ObjectMapper geminiObjectMapper(){
+        return JsonMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+}
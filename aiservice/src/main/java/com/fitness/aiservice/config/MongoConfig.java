@@ -1,9 +1,23 @@
 package com.fitness.aiservice.config;
 
+import com.fitness.mongo.MongoIndexInitializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 
 @Configuration
 @EnableMongoAuditing
 public class MongoConfig {
+
+    //Creates the declared indexes before any listener starts and checks the repository queries against them
+    @Bean
+    public MongoIndexInitializer mongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mongoMappingContext,
+                                                       ApplicationContext applicationContext,
+                                                       @Value("${mongodb.indexes.fail-fast:true}") boolean failFast){
+        return new MongoIndexInitializer(mongoTemplate, mongoMappingContext, applicationContext, failFast);
+    }
 }
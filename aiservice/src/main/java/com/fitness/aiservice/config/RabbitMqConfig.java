@@ -1,14 +1,26 @@
 package com.fitness.aiservice.config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 
 @Configuration
@@ -21,6 +33,48 @@ public class RabbitMqConfig {
     private String exchange;
     @Value("${rabbitmq.routing.key}")
     private String routingKey;
+    @Value("${rabbitmq.bulk.queue:activity.bulk.queue}")
+    private String bulkQueue;
+    @Value("${rabbitmq.bulk.routing-key:activity.tracking.bulk}")
+    private String bulkRoutingKey;
+
+    //AI consumer properties
+    @Value("${ai.consumer.concurrency:4}")
+    private int concurrency;
+    @Value("${ai.consumer.max-concurrency:16}")
+    private int maxConcurrency;
+    @Value("${ai.consumer.prefetch:1}")
+    private int prefetch;
+    @Value("${ai.consumer.batch-size:8}")
+    private int batchSize;
+    @Value("${ai.consumer.receive-timeout:500ms}")
+    private Duration receiveTimeout;
+    @Value("${ai.consumer.bulk.concurrency:1}")
+    private int bulkConcurrency;
+    @Value("${ai.consumer.bulk.max-concurrency:2}")
+    private int bulkMaxConcurrency;
+
+    //Fallback reprocessing properties
+    @Value("${rabbitmq.reprocess.queue:activity.reprocess.queue}")
+    private String reprocessQueue;
+    @Value("${rabbitmq.reprocess.routing-key:activity.reprocess}")
+    private String reprocessRoutingKey;
+    @Value("${rabbitmq.reprocess.delay-queue-prefix:activity.retry.delay}")
+    private String delayQueuePrefix;
+    @Value("${rabbitmq.reprocess.delay-routing-key-prefix:activity.retry}")
+    private String delayRoutingKeyPrefix;
+    @Value("${rabbitmq.dead-letter.queue:activity.dlq}")
+    private String deadLetterQueue;
+    @Value("${rabbitmq.dead-letter.routing-key:activity.dead}")
+    private String deadLetterRoutingKey;
+    @Value("${ai.reprocess.max-attempts:5}")
+    private int reprocessMaxAttempts;
+    @Value("${ai.reprocess.initial-delay:1m}")
+    private Duration reprocessInitialDelay;
+    @Value("${ai.reprocess.multiplier:2.0}")
+    private double reprocessMultiplier;
+    @Value("${ai.reprocess.concurrency:1}")
+    private int reprocessConcurrency;
 
     //Declares a queue named activityQueue
     @Bean
@@ -39,6 +93,16 @@ public class RabbitMqConfig {
         return BindingBuilder.bind(activityQueue).to(activityExchange).with(routingKey);
     }
 
+    //Lane for bulk uploads and backfills published by the activity service
+    @Bean
+    public Queue activityBulkQueue(){
+        return new Queue(bulkQueue,true);
+    }
+    @Bean
+    public Binding activityBulkBinding(Queue activityBulkQueue, DirectExchange activityExchange){
+        return BindingBuilder.bind(activityBulkQueue).to(activityExchange).with(bulkRoutingKey);
+    }
+
 
     //Converts java objects to json when sending messages to queue
     //Makes easier so you do not have to manually serialize objects
@@ -46,4 +110,122 @@ public class RabbitMqConfig {
     public MessageConverter jsonMessageConverter(){
         return new JacksonJsonMessageConverter();
     }
+
+    //Listener container used by @RabbitListener. Each consumer runs on its own virtual thread, so a consumer
+    //blocked on a slow LLM call costs no platform thread and throughput scales with the configured concurrency.
+    //The prefetch count bounds the unacknowledged messages held per consumer, leaving the rest on the broker.
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               MessageConverter jsonMessageConverter){
+        SimpleAsyncTaskExecutor consumerExecutor = new SimpleAsyncTaskExecutor("ai-consumer-");
+        consumerExecutor.setVirtualThreads(true);
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter);
+        factory.setTaskExecutor(consumerExecutor);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(prefetch);
+        return factory;
+    }
+
+    //Listener container for the bulk lane. It gets a small share of the consumers (and so of the Gemini bulkhead
+    //slots), which keeps live uploads on activityQueue moving while a backfill is being worked through.
+    @Bean
+    public SimpleRabbitListenerContainerFactory bulkListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                             MessageConverter jsonMessageConverter){
+        SimpleAsyncTaskExecutor consumerExecutor = new SimpleAsyncTaskExecutor("ai-bulk-consumer-");
+        consumerExecutor.setVirtualThreads(true);
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter);
+        factory.setTaskExecutor(consumerExecutor);
+        factory.setConcurrentConsumers(bulkConcurrency);
+        factory.setMaxConcurrentConsumers(bulkMaxConcurrency);
+        factory.setPrefetchCount(prefetch);
+        return factory;
+    }
+
+    //Listener container for ai.consumer.mode=batch. Each consumer hands up to batch-size messages to the listener
+    //at once, or fewer when no further message arrives within receive-timeout. Messages are acknowledged manually,
+    //one delivery tag at a time, so a failing item is redelivered without the rest of its batch.
+    @Bean
+    @ConditionalOnProperty(name = "ai.consumer.mode", havingValue = "batch")
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(ConnectionFactory connectionFactory){
+        return batchContainerFactory(connectionFactory, "ai-batch-consumer-", concurrency, maxConcurrency);
+    }
+
+    //Batch mode container for the bulk lane, with the bulk lane's share of consumers
+    @Bean
+    @ConditionalOnProperty(name = "ai.consumer.mode", havingValue = "batch")
+    public SimpleRabbitListenerContainerFactory bulkBatchListenerContainerFactory(ConnectionFactory connectionFactory){
+        return batchContainerFactory(connectionFactory, "ai-bulk-batch-consumer-", bulkConcurrency, bulkMaxConcurrency);
+    }
+
+    private SimpleRabbitListenerContainerFactory batchContainerFactory(ConnectionFactory connectionFactory, String threadNamePrefix,
+                                                                       int concurrentConsumers, int maxConcurrentConsumers){
+        SimpleAsyncTaskExecutor consumerExecutor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        consumerExecutor.setVirtualThreads(true);
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setTaskExecutor(consumerExecutor);
+        factory.setConcurrentConsumers(concurrentConsumers);
+        factory.setMaxConcurrentConsumers(maxConcurrentConsumers);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeout.toMillis());
+        //A consumer can only fill a batch with messages the broker has already sent it
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
+
+    //Topology for activities that only got a fallback recommendation. Attempt n is parked in its own delay queue
+    //whose TTL grows exponentially (a single queue with per message TTLs would only expire messages at its head).
+    //Expired messages are dead-lettered to the reprocess queue, and activities that never succeed end up in the DLQ.
+    @Bean
+    public Declarables reprocessingTopology(DirectExchange activityExchange){
+        List<Declarable> declarables = new ArrayList<>();
+
+        Queue reprocess = new Queue(reprocessQueue, true);
+        declarables.add(reprocess);
+        declarables.add(BindingBuilder.bind(reprocess).to(activityExchange).with(reprocessRoutingKey));
+
+        Queue deadLetter = new Queue(deadLetterQueue, true);
+        declarables.add(deadLetter);
+        declarables.add(BindingBuilder.bind(deadLetter).to(activityExchange).with(deadLetterRoutingKey));
+
+        for (int attempt = 1; attempt <= reprocessMaxAttempts; attempt++) {
+            long delayMs = (long) (reprocessInitialDelay.toMillis() * Math.pow(reprocessMultiplier, attempt - 1));
+            Queue delay = QueueBuilder.durable(delayQueuePrefix + "." + attempt)
+                    .ttl((int) Math.min(delayMs, Integer.MAX_VALUE))
+                    .deadLetterExchange(exchange)
+                    .deadLetterRoutingKey(reprocessRoutingKey)
+                    .build();
+            declarables.add(delay);
+            declarables.add(BindingBuilder.bind(delay).to(activityExchange).with(delayRoutingKeyPrefix + "." + attempt));
+        }
+        return new Declarables(declarables);
+    }
+
+    //Reprocessing gets its own small container so retries never take consumers away from fresh activities
+    @Bean
+    public SimpleRabbitListenerContainerFactory reprocessListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                                  MessageConverter jsonMessageConverter){
+        SimpleAsyncTaskExecutor consumerExecutor = new SimpleAsyncTaskExecutor("ai-reprocess-");
+        consumerExecutor.setVirtualThreads(true);
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter);
+        factory.setTaskExecutor(consumerExecutor);
+        factory.setConcurrentConsumers(reprocessConcurrency);
+        factory.setMaxConcurrentConsumers(reprocessConcurrency);
+        factory.setPrefetchCount(1);
+        return factory;
+    }
 }
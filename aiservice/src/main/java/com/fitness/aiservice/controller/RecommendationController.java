@@ -1,12 +1,24 @@
 package com.fitness.aiservice.controller;
 
+import com.fitness.aiservice.dto.CachedResponse;
+import com.fitness.aiservice.dto.RecommendationSummaryPage;
 import com.fitness.aiservice.model.Recommendation;
+import com.fitness.aiservice.service.RecommendationEventHub;
 import com.fitness.aiservice.service.RecommendationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
 
 
@@ -16,17 +28,75 @@ import java.util.List;
 public class RecommendationController {
 
     private final RecommendationService recommendationService;
+    private final RecommendationEventHub recommendationEventHub;
 
+    @Value("${ai.stream.heartbeat:15s}")
+    private Duration heartbeat;
+    @Value("${ai.stream.max-duration:30m}")
+    private Duration maxDuration;
 
+
+    //Pushes the user's recommendations as they are saved, so clients do not have to poll for them.
+    //Heartbeat comments keep idle connections open through proxies, clients reconnect after max-duration.
+    //The emitter has its own timeout, a heartbeat past max-duration, so only this endpoint runs that long.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecommendations(@RequestHeader("X-USER-ID") String userId){
+
+        SseEmitter emitter = new SseEmitter(maxDuration.plus(heartbeat).toMillis());
+        Flux<SseEmitter.SseEventBuilder> recommendations = recommendationEventHub.subscribe(userId)
+                .map(recommendation -> SseEmitter.event()
+                        .id(recommendation.getActivityId())
+                        .name("recommendation")
+                        .data(recommendation, MediaType.APPLICATION_JSON));
+        Flux<SseEmitter.SseEventBuilder> heartbeats = Flux.interval(heartbeat)
+                .map(tick -> SseEmitter.event().comment("heartbeat"));
+
+        Disposable stream = Flux.merge(recommendations, heartbeats)
+                .take(maxDuration)
+                .subscribe(event -> send(emitter, event), emitter::completeWithError, emitter::complete);
+        //Client gone or timed out, stop listening for its recommendations
+        emitter.onCompletion(stream::dispose);
+        emitter.onTimeout(stream::dispose);
+        emitter.onError(e -> stream.dispose());
+        return emitter;
+    }
+
+    //Polls sending the ETag of the last response get a 304 without a body while nothing changed
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Recommendation>> getUserRecommendations(@PathVariable String userId){
+    public ResponseEntity<List<Recommendation>> getUserRecommendations(@PathVariable String userId, WebRequest webRequest){
 
-        return ResponseEntity.ok(recommendationService.getUserRecommendations(userId));
+        CachedResponse<List<Recommendation>> recommendations = recommendationService.getUserRecommendations(userId);
+        if (webRequest.checkNotModified(recommendations.eTag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(recommendations.eTag()).body(recommendations.body());
+    }
+
+    //Lightweight list view, one page of summaries at a time
+    @GetMapping("/user/{userId}/summaries")
+    public ResponseEntity<RecommendationSummaryPage> getUserRecommendationSummaries(@PathVariable String userId,
+                                                                                    @RequestParam(defaultValue = "0") int page,
+                                                                                    @RequestParam(defaultValue = "20") int size){
+
+        return ResponseEntity.ok(recommendationService.getUserRecommendationSummaries(userId, page, size));
     }
 
     @GetMapping("/activity/{activityId}")
-    public ResponseEntity<Recommendation> getActivityRecommendations(@PathVariable String activityId){
+    public ResponseEntity<Recommendation> getActivityRecommendations(@PathVariable String activityId, WebRequest webRequest){
+
+        CachedResponse<Recommendation> recommendation = recommendationService.getActivityRecommendations(activityId);
+        if (webRequest.checkNotModified(recommendation.eTag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(recommendation.eTag()).body(recommendation.body());
+    }
 
-        return ResponseEntity.ok(recommendationService.getActivityRecommendations(activityId));
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            //Fails the stream, which disposes it
+            throw new UncheckedIOException(e);
+        }
     }
 }
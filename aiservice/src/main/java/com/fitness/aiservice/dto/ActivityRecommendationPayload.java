@@ -0,0 +1,13 @@
+package com.fitness.aiservice.dto;
+
+import lombok.Data;
+
+/**
+ * One entry of a multi-activity answer: the recommendation for the activity with the given id.
+ */
+@Data
+public class ActivityRecommendationPayload {
+
+    private String activityId;
+    private RecommendationPayload recommendation;
+}
@@ -0,0 +1,32 @@
+package com.fitness.aiservice.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A response body together with the ETag computed for it when it was cached.
+ */
+public record CachedResponse<T>(T body, String eTag) {
+
+    /**
+     * Wraps a body with a strong ETag, the SHA-256 of its string form. Bodies are Lombok {@code @Data}
+     * classes or lists of them, whose {@code toString} covers every field, so any change to the body
+     * changes the ETag.
+     * @param body the response body
+     * @return the body with its ETag
+     */
+    public static <T> CachedResponse<T> of(T body) {
+        return new CachedResponse<>(body, "\"" + sha256(String.valueOf(body)) + "\"");
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.fitness.aiservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The recommendation JSON the model returns inside {@code candidates[0].content.parts[0].text}.
+ */
+@Data
+public class RecommendationPayload {
+
+    private Analysis analysis;
+    private List<Improvement> improvements;
+    private List<Suggestion> suggestions;
+    private List<String> safety;
+
+    @Data
+    public static class Analysis {
+        private String overall;
+        private String pace;
+        private String heartRate;
+        private String caloriesBurned;
+    }
+
+    @Data
+    public static class Improvement {
+        private String area;
+        //The prompt template asked for "recommendation" while the parser read "detail", accept both
+        @JsonAlias("recommendation")
+        private String detail;
+    }
+
+    @Data
+    public static class Suggestion {
+        private String workout;
+        private String description;
+    }
+}
@@ -0,0 +1,57 @@
+package com.fitness.aiservice.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gemini {@code responseSchema} describing {@link RecommendationPayload}, alone or as a list of
+ * {@link ActivityRecommendationPayload} for multi-activity prompts.
+ *
+ * <p>Sent with {@code responseMimeType: application/json} so the model returns the payload as plain,
+ * schema conforming JSON instead of following a template embedded in the prompt.</p>
+ */
+public final class RecommendationSchema {
+
+    public static final Map<String, Object> RESPONSE_SCHEMA = object(
+            List.of("analysis", "improvements", "suggestions", "safety"),
+            Map.of(
+                    "analysis", object(
+                            List.of("overall", "pace", "heartRate", "caloriesBurned"),
+                            Map.of(
+                                    "overall", string(),
+                                    "pace", string(),
+                                    "heartRate", string(),
+                                    "caloriesBurned", string())),
+                    "improvements", array(object(
+                            List.of("area", "detail"),
+                            Map.of("area", string(), "detail", string()))),
+                    "suggestions", array(object(
+                            List.of("workout", "description"),
+                            Map.of("workout", string(), "description", string()))),
+                    "safety", array(string())));
+
+    //Multi-activity prompts, one entry per activity tagged with its id
+    public static final Map<String, Object> BATCH_RESPONSE_SCHEMA = array(object(
+            List.of("activityId", "recommendation"),
+            Map.of("activityId", string(), "recommendation", RESPONSE_SCHEMA)));
+
+    private RecommendationSchema() {
+    }
+
+    //Every property is required and ordered as listed, which keeps the output stable across calls
+    private static Map<String, Object> object(List<String> propertyOrdering, Map<String, Object> properties) {
+        return Map.of(
+                "type", "OBJECT",
+                "properties", properties,
+                "required", propertyOrdering,
+                "propertyOrdering", propertyOrdering);
+    }
+
+    private static Map<String, Object> array(Map<String, Object> items) {
+        return Map.of("type", "ARRAY", "items", items);
+    }
+
+    private static Map<String, Object> string() {
+        return Map.of("type", "STRING");
+    }
+}
@@ -0,0 +1,19 @@
+package com.fitness.aiservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of a recommendation. The full document is fetched by activity id on drill-down.
+ */
+@Data
+public class RecommendationSummary {
+
+    private String activityId;
+    private String activityType;
+    private LocalDateTime createdAt;
+    //First line of the analysis
+    private String summary;
+    private boolean fallback;
+}
@@ -0,0 +1,21 @@
+package com.fitness.aiservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of a user's recommendation summaries, newest first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationSummaryPage {
+
+    private List<RecommendationSummary> summaries;
+    private int page;
+    private int size;
+    private boolean hasMore;
+}
@@ -6,12 +6,15 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document("recommendations")
+@CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1}")
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,6 +23,7 @@ public class Recommendation {
 
     @Id
     private String id;
+    @Indexed(unique = true)
     private String activityId;
     private String userId;
     private String activityType;
@@ -27,6 +31,8 @@ public class Recommendation {
     private List<String> improvements;
     private List<String> suggestions;
     private List<String> safety;
+    //true when the AI call failed and the canned fallback was stored instead
+    private boolean fallback;
 
     @CreatedDate
     private LocalDateTime createdAt;
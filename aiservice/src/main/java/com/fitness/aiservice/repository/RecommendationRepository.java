@@ -1,6 +1,8 @@
 package com.fitness.aiservice.repository;
 
+import com.fitness.aiservice.dto.RecommendationSummary;
 import com.fitness.aiservice.model.Recommendation;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,4 +15,17 @@ public interface RecommendationRepository extends MongoRepository<Recommendation
 
     Optional<Recommendation> findByActivityId(String activityId);
 
+    boolean existsByActivityId(String activityId);
+
+    //Sorted and paged on the userId_createdAt index before projecting, so only the returned page is projected
+    @Aggregation(pipeline = {
+            "{ '$match': { 'userId': ?0 } }",
+            "{ '$sort': { 'createdAt': -1 } }",
+            "{ '$skip': ?1 }",
+            "{ '$limit': ?2 }",
+            "{ '$project': { '_id': 0, 'activityId': 1, 'activityType': 1, 'createdAt': 1, 'fallback': 1, "
+                    + "'summary': { '$arrayElemAt': [ { '$split': [ { '$ifNull': [ '$recommendation', '' ] }, '\\n' ] }, 0 ] } } }"
+    })
+    List<RecommendationSummary> findSummariesByUserId(String userId, long skip, int limit);
+
 }
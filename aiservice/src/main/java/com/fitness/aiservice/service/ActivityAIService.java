@@ -1,17 +1,26 @@
 package com.fitness.aiservice.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.dto.ActivityRecommendationPayload;
+import com.fitness.aiservice.dto.RecommendationPayload;
+import com.fitness.aiservice.dto.RecommendationSchema;
 import com.fitness.aiservice.model.Activity;
 import com.fitness.aiservice.model.Recommendation;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @Slf4j
@@ -19,66 +28,120 @@ import java.util.List;
 public class ActivityAIService {
 
     private final GeminiService geminiService;
+    private final RecommendationCache recommendationCache;
+    private final GeminiResponseParser geminiResponseParser;
+    private final MeterRegistry meterRegistry;
 
-    public Recommendation generateRecommendation(Activity activity) {
+    //When enabled the response format is enforced by a schema instead of a JSON template in the prompt
+    @Value("${gemini.structured-output.enabled:true}")
+    private boolean structuredOutput;
 
-        String prompt = createPromptForActivity(activity);
-        String aiResponse = geminiService.getAnswers(prompt);
+    private static final String ANALYSIS_FOCUS =
+            "Cover performance (overall, pace, heart rate, calories), improvements, next workout suggestions and safety.\n";
 
-        log.info("AI Response: {}", aiResponse);
+    public Recommendation generateRecommendation(Activity activity) {
 
+        Optional<Recommendation> cachedRecommendation = recommendationCache.get(activity);
+        if (cachedRecommendation.isPresent()) {
+            log.info("Reusing cached recommendation for equivalent activity: {}", activity.getId());
+            return cachedRecommendation.get();
+        }
 
+        String aiResponse;
+        try {
+            aiResponse = structuredOutput
+                    ? geminiService.getAnswers(createStructuredPromptForActivity(activity), RecommendationSchema.RESPONSE_SCHEMA)
+                    : geminiService.getAnswers(createPromptForActivity(activity));
+        } catch (CallNotPermittedException e) {
+            log.warn("Gemini circuit breaker is open, using fallback recommendation for activity: {}", activity.getId());
+            return createFallbackRecommendation(activity);
+        } catch (Exception e) {
+            log.error("Gemini call failed for activity {}: {}", activity.getId(), e.getMessage());
+            return createFallbackRecommendation(activity);
+        }
 
-        return processAiResponse(activity, aiResponse);
-    }
+        log.info("AI Response: {}", aiResponse);
 
-    private Recommendation processAiResponse(Activity activity, String aiResponse) {
 
-        //TODO: Build out custom objects to map to ai json response
-        try{
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode rootNode = objectMapper.readTree(aiResponse);
 
-            JsonNode textNode = rootNode.path("candidates")
-                    .get(0)
-                    .path("content")
-                    .path("parts")
-                    .get(0)
-                    .path("text");
+        Recommendation recommendation = processAiResponse(activity, aiResponse);
+        recommendationCache.put(activity, recommendation);
+        return recommendation;
+    }
 
-            String jsonContent = textNode.asText()
-                    //These lines remove the json markdown generated in ai response
-                    .replaceAll("```json\\n","")
-                    .replaceAll("\\n```","")
-                    .trim();
+    /**
+     * Generates recommendations for several activities with a single multi-activity prompt.
+     *
+     * <p>Cached activities are answered from the cache. Activities the model left out of its answer,
+     * or all of them if the answer cannot be parsed, fall back to one prompt per activity. When Gemini
+     * itself is unavailable every activity gets the fallback recommendation, as in single activity mode.</p>
+     * @param activities the activities of one batch
+     * @return the recommendations, in the order of the activities
+     */
+    public List<Recommendation> generateRecommendations(List<Activity> activities) {
 
-            //log.info("Parsed Response from AI : {}", jsonContent);
+        if (activities.size() == 1 || !structuredOutput) {
+            return activities.stream().map(this::generateRecommendation).toList();
+        }
 
-            JsonNode recommendationJson = objectMapper.readTree(jsonContent);
-            JsonNode analysisNode = recommendationJson.path("analysis");
+        Map<Activity, Recommendation> recommendations = new IdentityHashMap<>();
+        List<Activity> uncachedActivities = new ArrayList<>();
+        for (Activity activity : activities) {
+            recommendationCache.get(activity).ifPresentOrElse(
+                    cachedRecommendation -> recommendations.put(activity, cachedRecommendation),
+                    () -> uncachedActivities.add(activity));
+        }
 
-            StringBuilder fullAnalysis = new StringBuilder();
-            buildAnalysis(fullAnalysis,analysisNode,"overall","Overall: ");
-            buildAnalysis(fullAnalysis,analysisNode,"pace","Pace: ");
-            buildAnalysis(fullAnalysis,analysisNode,"heartRate","Heart Rate: ");
-            buildAnalysis(fullAnalysis,analysisNode,"caloriesBurned","Calories Burned: ");
+        if (uncachedActivities.size() == 1) {
+            recommendations.put(uncachedActivities.get(0), generateRecommendation(uncachedActivities.get(0)));
+        } else if (!uncachedActivities.isEmpty()) {
+            String aiResponse;
+            try {
+                aiResponse = geminiService.getAnswers(createBatchPromptForActivities(uncachedActivities),
+                        RecommendationSchema.BATCH_RESPONSE_SCHEMA);
+            } catch (Exception e) {
+                log.error("Gemini call failed for a batch of {} activities: {}", uncachedActivities.size(), e.getMessage());
+                uncachedActivities.forEach(activity -> recommendations.put(activity, createFallbackRecommendation(activity)));
+                return activities.stream().map(recommendations::get).toList();
+            }
+
+            Map<String, RecommendationPayload> payloads = parseBatchResponse(aiResponse);
+            for (Activity activity : uncachedActivities) {
+                RecommendationPayload payload = payloads.get(activity.getId());
+                if (payload == null) {
+                    //Missing from the combined answer, ask for this activity on its own
+                    meterRegistry.counter("ai.batch.single.fallbacks").increment();
+                    recommendations.put(activity, generateRecommendation(activity));
+                    continue;
+                }
+                Recommendation recommendation = toRecommendation(activity, payload);
+                recommendationCache.put(activity, recommendation);
+                recommendations.put(activity, recommendation);
+            }
+        }
 
-            List<String> improvements = buildImprovements(recommendationJson.path("improvements"));
-            List<String> suggestions = buildSuggestions(recommendationJson.path("suggestions"));
-            List<String> safety = buildSafetyGuidelines(recommendationJson.path("safety"));
+        return activities.stream().map(recommendations::get).toList();
+    }
 
+    private Map<String, RecommendationPayload> parseBatchResponse(String aiResponse) {
 
-            return Recommendation.builder()
-                    .activityId(activity.getId())
-                    .userId(activity.getUserId())
-                    .activityType(activity.getActivityType())
-                    .recommendation(fullAnalysis.toString().trim())
-                    .improvements(improvements)
-                    .suggestions(suggestions)
-                    .safety(safety)
-                    .build();
+        Map<String, RecommendationPayload> payloads = new HashMap<>();
+        try {
+            for (ActivityRecommendationPayload payload : geminiResponseParser.parseBatch(aiResponse)) {
+                if (payload.getActivityId() != null && payload.getRecommendation() != null) {
+                    payloads.putIfAbsent(payload.getActivityId(), payload.getRecommendation());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Could not parse multi-activity response, falling back to single activity prompts: {}", e.getMessage());
+        }
+        return payloads;
+    }
 
+    private Recommendation processAiResponse(Activity activity, String aiResponse) {
 
+        try{
+            return toRecommendation(activity, geminiResponseParser.parse(aiResponse));
         } catch (Exception e) {
             log.error(e.getMessage());
             //TODO: May create custom exception and handle this downstream instead of fallback
@@ -87,6 +150,33 @@ public class ActivityAIService {
 
     }
 
+    private Recommendation toRecommendation(Activity activity, RecommendationPayload payload) {
+
+        StringBuilder fullAnalysis = new StringBuilder();
+        RecommendationPayload.Analysis analysis = payload.getAnalysis();
+        if (analysis != null) {
+            buildAnalysis(fullAnalysis, analysis.getOverall(), "Overall: ");
+            buildAnalysis(fullAnalysis, analysis.getPace(), "Pace: ");
+            buildAnalysis(fullAnalysis, analysis.getHeartRate(), "Heart Rate: ");
+            buildAnalysis(fullAnalysis, analysis.getCaloriesBurned(), "Calories Burned: ");
+        }
+
+        List<String> improvements = buildImprovements(payload.getImprovements());
+        List<String> suggestions = buildSuggestions(payload.getSuggestions());
+        List<String> safety = buildSafetyGuidelines(payload.getSafety());
+
+
+        return Recommendation.builder()
+                .activityId(activity.getId())
+                .userId(activity.getUserId())
+                .activityType(activity.getActivityType())
+                .recommendation(fullAnalysis.toString().trim())
+                .improvements(improvements)
+                .suggestions(suggestions)
+                .safety(safety)
+                .build();
+    }
+
     /**
      * Fallback method if there was an issue with generating recommendation
      * @param activity
@@ -104,56 +194,94 @@ public class ActivityAIService {
                         "Always warm up before exercise",
                         "Stay hydrated",
                         "Listen to your body"))
+                .fallback(true)
                 .build();
     }
 
-    private List<String> buildSafetyGuidelines(JsonNode safetyGuidelines) {
+    private List<String> buildSafetyGuidelines(List<String> safetyGuidelines) {
         List<String> safetyGuidelinesList = new ArrayList<>();
-        if(safetyGuidelines.isArray()){
-            safetyGuidelines.forEach(safetyGuideline -> safetyGuidelinesList.add(safetyGuideline.asText()));
+        if(safetyGuidelines != null){
+            safetyGuidelines.stream().filter(Objects::nonNull).forEach(safetyGuidelinesList::add);
         }
         return safetyGuidelinesList.isEmpty() ?
                 Collections.singletonList("Follow general safety guidelines") : safetyGuidelinesList;
     }
 
-    private List<String> buildSuggestions(JsonNode suggestions) {
+    private List<String> buildSuggestions(List<RecommendationPayload.Suggestion> suggestions) {
         List<String> suggestionList = new ArrayList<>();
-        if(suggestions.isArray()){
-            suggestions.forEach(improvement->{
-                String workout = improvement.path("workout").asText();
-                String description = improvement.path("description").asText();
-                suggestionList.add(String.format("%s: %s",workout,description));
-
-            });
+        if(suggestions != null){
+            suggestions.forEach(suggestion->
+                    suggestionList.add(String.format("%s: %s",
+                            Objects.toString(suggestion.getWorkout(), ""),
+                            Objects.toString(suggestion.getDescription(), ""))));
         }
         return suggestionList.isEmpty() ?
                 Collections.singletonList("No suggestions provided") : suggestionList;
     }
 
-    private List<String> buildImprovements(JsonNode improvements) {
+    private List<String> buildImprovements(List<RecommendationPayload.Improvement> improvements) {
 
         List<String> improvementList = new ArrayList<>();
-        if(improvements.isArray()){
-            improvements.forEach(improvement->{
-                String area = improvement.path("area").asText();
-                String detail = improvement.path("detail").asText();
-                improvementList.add(String.format("%s: %s",area,detail));
-
-            });
+        if(improvements != null){
+            improvements.forEach(improvement->
+                    improvementList.add(String.format("%s: %s",
+                            Objects.toString(improvement.getArea(), ""),
+                            Objects.toString(improvement.getDetail(), ""))));
         }
         return improvementList.isEmpty() ?
                 Collections.singletonList("No improvements provided") : improvementList;
     }
 
-    private void buildAnalysis(StringBuilder fullAnalysis, JsonNode analysisNode, String key, String prefix) {
-        //if path does not exist it will return missing node versus a null pointer as get would
-        if(!analysisNode.path(key).isMissingNode()) {
+    private void buildAnalysis(StringBuilder fullAnalysis, String value, String prefix) {
+        //Fields the model left out are skipped rather than printed as "null"
+        if(value != null) {
             fullAnalysis.append(prefix)
-                    .append(analysisNode.path(key).asText())
+                    .append(value)
                     .append("\n\n");
         }
     }
 
+    /**
+     * Prompt for structured output mode. The JSON layout comes from {@link RecommendationSchema},
+     * so the prompt only carries the activity and what to focus on.
+     */
+    private String createStructuredPromptForActivity(Activity activity) {
+
+        return "Analyze this fitness activity.\n"
+                + describeActivity(activity)
+                + ANALYSIS_FOCUS;
+    }
+
+    /**
+     * Prompt covering several activities, the instructions are sent once for the whole batch.
+     */
+    private String createBatchPromptForActivities(List<Activity> activities) {
+
+        StringBuilder prompt = new StringBuilder("""
+                Analyze each of these fitness activities separately.
+                Return exactly one entry per activity, with its Activity Id copied unchanged into activityId.
+                """);
+        for (Activity activity : activities) {
+            prompt.append("\nActivity Id: ").append(activity.getId()).append('\n')
+                    .append(describeActivity(activity));
+        }
+        return prompt.append('\n').append(ANALYSIS_FOCUS).toString();
+    }
+
+    private String describeActivity(Activity activity) {
+
+        return String.format("""
+                Activity Type: %s
+                Duration: %d minutes
+                Calories Burned: %d
+                Additional Metrics: %s
+                """,
+                activity.getActivityType(),
+                activity.getDuration(),
+                activity.getCaloriesBurned(),
+                activity.getAdditionalMetrics());
+    }
+
     private String createPromptForActivity(Activity activity) {
 
         return String.format("""
@@ -163,23 +291,23 @@ public class ActivityAIService {
                         "overall": "Overall analysis here",
                         "pace": "Pace analysis here",
                         "heartRate": "Heart rate analysis here",
-                        "caloriesBurned": "Calories analysis here",
+                        "caloriesBurned": "Calories analysis here"
                     },
                     "improvements": [
                         {
                             "area": "Area name",
-                            "recommendation": Detailed recommendation"
+                            "detail": "Detailed recommendation"
                         }
                     ],
                     "suggestions": [
                         {
-                            "workout": Workout name",
+                            "workout": "Workout name",
                             "description": "Detailed workout description"
                         }
                     ],
                     "safety": [
-                    "Safety point 1",
-                    "Safety point 2"
+                        "Safety point 1",
+                        "Safety point 2"
                     ]
                 }
                 
@@ -0,0 +1,186 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.Recommendation;
+import com.rabbitmq.client.Channel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch mode counterpart of {@link ActivityMessageListener}, active with {@code ai.consumer.mode=batch}.
+ *
+ * <p>Each batch delivered by the container is analysed with one multi-activity prompt and stored with one
+ * bulk insert. Every message is then acknowledged on its own: saved and duplicate recommendations are acked,
+ * activities whose batch or insert failed are acked and handed to {@link FallbackReprocessor}, which retries
+ * them with backoff before parking them on the dead letter queue, and messages that cannot be read are parked
+ * on the dead letter queue right away.
+ * Activities that were already processed are acked and dropped before the prompt is built.
+ * Each message is settled on its own, so a message whose handling throws is requeued without leaving
+ * the rest of the batch unacknowledged.</p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ai.consumer.mode", havingValue = "batch")
+public class ActivityBatchMessageListener {
+
+    private final ActivityAIService activityAIService;
+    private final RecommendationBulkWriter recommendationBulkWriter;
+    private final FallbackReprocessor fallbackReprocessor;
+    private final ProcessedActivityGuard processedActivityGuard;
+    private final RecommendationService recommendationService;
+    private final RecommendationEventHub recommendationEventHub;
+    private final MessageConverter jsonMessageConverter;
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${rabbitmq.exchange.name}")
+    private String exchange;
+    @Value("${rabbitmq.dead-letter.routing-key:activity.dead}")
+    private String deadLetterRoutingKey;
+
+    @RabbitListener(queues = "${rabbitmq.queue.name}", containerFactory = "batchListenerContainerFactory")
+    public void processActivities(List<Message> messages, Channel channel) {
+        log.info("Received batch of {} activities for processing", messages.size());
+
+        List<Message> readMessages = new ArrayList<>();
+        List<Activity> activities = new ArrayList<>();
+        for (Message message : messages) {
+            try {
+                Activity activity = readAndClaim(channel, message);
+                if (activity != null) {
+                    activities.add(activity);
+                    readMessages.add(message);
+                }
+            } catch (Exception e) {
+                requeueAfterFailure(channel, message, e);
+            }
+        }
+        if (activities.isEmpty()) {
+            return;
+        }
+
+        List<Recommendation> recommendations;
+        List<RecommendationBulkWriter.Outcome> outcomes;
+        try {
+            recommendations = activityAIService.generateRecommendations(activities);
+            outcomes = recommendationBulkWriter.insertAll(recommendations);
+        } catch (Exception e) {
+            log.error("Batch of {} activities failed, scheduling it for reprocessing: {}", activities.size(), e.getMessage());
+            for (int i = 0; i < readMessages.size(); i++) {
+                try {
+                    reprocessLater(channel, readMessages.get(i), activities.get(i));
+                } catch (Exception reprocessFailure) {
+                    requeueAfterFailure(channel, readMessages.get(i), reprocessFailure);
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < readMessages.size(); i++) {
+            Message message = readMessages.get(i);
+            try {
+                switch (outcomes.get(i)) {
+                    case SAVED -> {
+                        ack(channel, message);
+                        afterSave(activities.get(i), recommendations.get(i));
+                    }
+                    case DUPLICATE -> {
+                        log.warn("Recommendation already exists for activity {}, skipping", activities.get(i).getId());
+                        ack(channel, message);
+                    }
+                    case FAILED -> reprocessLater(channel, message, activities.get(i));
+                }
+            } catch (Exception e) {
+                requeueAfterFailure(channel, message, e);
+            }
+        }
+    }
+
+    //Bulk lane, same processing with the lower concurrency of its container
+    @RabbitListener(queues = "${rabbitmq.bulk.queue:activity.bulk.queue}", containerFactory = "bulkBatchListenerContainerFactory")
+    public void processBulkActivities(List<Message> messages, Channel channel) {
+        processActivities(messages, channel);
+    }
+
+    /**
+     * Reads an activity and claims it for processing, settling the messages that do not get into the prompt.
+     * @return the claimed activity, or null if its message was already settled
+     */
+    private Activity readAndClaim(Channel channel, Message message) throws IOException {
+
+        Activity activity;
+        try {
+            message.getMessageProperties().setInferredArgumentType(Activity.class);
+            activity = (Activity) jsonMessageConverter.fromMessage(message);
+        } catch (Exception e) {
+            //Would fail the same way on every redelivery
+            log.error("Could not read activity message, moving it to the dead letter queue: {}", e.getMessage());
+            rabbitTemplate.send(exchange, deadLetterRoutingKey, message);
+            ack(channel, message);
+            return null;
+        }
+        boolean claimed;
+        try {
+            claimed = processedActivityGuard.tryClaim(activity.getId());
+        } catch (RuntimeException e) {
+            //Same as single mode, retried with backoff instead of being redelivered right away
+            log.error("Could not check activity {} for duplicates, scheduling it for reprocessing: {}",
+                    activity.getId(), e.getMessage());
+            reprocessLater(channel, message, activity);
+            return null;
+        }
+        if (!claimed) {
+            log.info("Activity {} was already processed, dropping duplicate delivery", activity.getId());
+            ack(channel, message);
+            return null;
+        }
+        return activity;
+    }
+
+    //The message is already acked, a failure here must not settle it a second time
+    private void afterSave(Activity activity, Recommendation recommendation) {
+        try {
+            recommendationService.evict(recommendation);
+            recommendationEventHub.publish(recommendation);
+            if (recommendation.isFallback()) {
+                fallbackReprocessor.scheduleFirstAttempt(activity);
+            }
+        } catch (RuntimeException e) {
+            log.error("Saved recommendation for activity {} but could not publish or schedule it: {}",
+                    activity.getId(), e.getMessage());
+        }
+    }
+
+    //Requeueing would retry right away and forever, the reprocess queue backs off and ends on the dead letter queue
+    private void reprocessLater(Channel channel, Message message, Activity activity) throws IOException {
+        processedActivityGuard.release(activity.getId());
+        fallbackReprocessor.scheduleFirstAttempt(activity);
+        ack(channel, message);
+    }
+
+    private void ack(Channel channel, Message message) throws IOException {
+        channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+    }
+
+    //Leaves no message of the batch unsettled, whatever failed while handling it
+    private void requeueAfterFailure(Channel channel, Message message, Exception failure) {
+        log.error("Could not handle activity message, requeueing it: {}", failure.getMessage());
+        try {
+            channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, true);
+        } catch (IOException e) {
+            //The channel is gone, the broker redelivers every unacked message of it
+            log.error("Could not requeue activity message: {}", e.getMessage());
+        }
+    }
+}
@@ -2,13 +2,16 @@ package com.fitness.aiservice.service;
 
 import com.fitness.aiservice.model.Activity;
 import com.fitness.aiservice.model.Recommendation;
-import com.fitness.aiservice.repository.RecommendationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+
 
 /**
  * Listener class for when messages are sent to the queue so that they can then be processed
@@ -16,17 +19,72 @@ import org.springframework.stereotype.Service;
 @Service
 @Slf4j
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "ai.consumer.mode", havingValue = "single", matchIfMissing = true)
 public class ActivityMessageListener {
 
     private final ActivityAIService activityAIService;
-    private final RecommendationRepository recommendationRepository;
+    private final RecommendationBulkWriter recommendationBulkWriter;
+    private final FallbackReprocessor fallbackReprocessor;
+    private final RecommendationBatcher recommendationBatcher;
+    private final ProcessedActivityGuard processedActivityGuard;
+    private final RecommendationService recommendationService;
+    private final RecommendationEventHub recommendationEventHub;
 
 
 
     @RabbitListener(queues = "activity.queue")
     public void processActivity(Activity activity) {
+        process(activity, recommendationBatcher.isEnabled());
+    }
+
+    //Bulk lane, kept out of the batcher so its activities never share a queue or a prompt with live uploads
+    @RabbitListener(queues = "${rabbitmq.bulk.queue:activity.bulk.queue}", containerFactory = "bulkListenerContainerFactory")
+    public void processBulkActivity(Activity activity) {
+        process(activity, false);
+    }
+
+    private void process(Activity activity, boolean batched) {
         log.info("Received Activity for processing: {}", activity.getId());
+        Optional<Recommendation> savedRecommendation;
+        try {
+            if (!processedActivityGuard.tryClaim(activity.getId())) {
+                log.info("Activity {} was already processed, dropping duplicate delivery", activity.getId());
+                return;
+            }
+            savedRecommendation = batched
+                    ? recommendationBatcher.submit(activity)
+                    : generateAndSave(activity);
+        } catch (CancellationException e) {
+            //Shutting down, the message is requeued and picked up again after the restart
+            processedActivityGuard.release(activity.getId());
+            throw e;
+        } catch (RuntimeException e) {
+            //Requeueing would retry right away and forever, the reprocess queue backs off and ends on the dead letter queue
+            log.error("Could not process activity {}, scheduling it for reprocessing: {}", activity.getId(), e.getMessage());
+            processedActivityGuard.release(activity.getId());
+            fallbackReprocessor.scheduleFirstAttempt(activity);
+            return;
+        }
+
+        savedRecommendation.ifPresent(recommendation -> {
+            recommendationService.evict(recommendation);
+            recommendationEventHub.publish(recommendation);
+        });
+        savedRecommendation
+                .filter(Recommendation::isFallback)
+                .ifPresent(recommendation -> fallbackReprocessor.scheduleFirstAttempt(activity));
+    }
+
+    //Single activity mode, one prompt and one save per message
+    private Optional<Recommendation> generateAndSave(Activity activity) {
         Recommendation activityRecommendation = activityAIService.generateRecommendation(activity);
-        recommendationRepository.save(activityRecommendation);
+        return switch (recommendationBulkWriter.insertIfAbsent(activityRecommendation)) {
+            case SAVED -> Optional.of(activityRecommendation);
+            case DUPLICATE -> {
+                log.warn("Recommendation already exists for activity {}, skipping", activity.getId());
+                yield Optional.empty();
+            }
+            case FAILED -> throw new RuntimeException("Could not save recommendation for activity " + activity.getId());
+        };
     }
 }
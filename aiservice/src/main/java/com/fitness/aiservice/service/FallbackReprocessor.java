@@ -0,0 +1,110 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.Recommendation;
+import com.fitness.aiservice.repository.RecommendationRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+
+/**
+ * Gives activities that only got a fallback recommendation another chance once Gemini recovers.
+ *
+ * <p>A fallback schedules the activity on the delay queue for attempt 1. When the delay expires
+ * the activity arrives on the reprocess queue, is analysed again and, on success, replaces the stored
+ * fallback recommendation. Another fallback, or a failure to generate or save it, moves it to the next,
+ * longer delay, until {@code ai.reprocess.max-attempts} is reached and it is parked on the dead letter queue.
+ * Activities whose first recommendation could not be generated or saved at all take the same route.
+ * While the Gemini circuit breaker is open, activities are rescheduled without using up an attempt.</p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FallbackReprocessor {
+
+    public static final String ATTEMPT_HEADER = "x-reprocess-attempt";
+
+    private final ActivityAIService activityAIService;
+    private final RecommendationRepository recommendationRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final CircuitBreaker geminiCircuitBreaker;
+    private final RecommendationService recommendationService;
+    private final RecommendationEventHub recommendationEventHub;
+
+    @Value("${rabbitmq.exchange.name}")
+    private String exchange;
+    @Value("${rabbitmq.reprocess.delay-routing-key-prefix:activity.retry}")
+    private String delayRoutingKeyPrefix;
+    @Value("${rabbitmq.dead-letter.routing-key:activity.dead}")
+    private String deadLetterRoutingKey;
+    @Value("${ai.reprocess.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Schedules an activity whose recommendation is a fallback, or could not be generated or saved,
+     * for its first reprocessing attempt.
+     * @param activity the activity to reprocess later
+     */
+    public void scheduleFirstAttempt(Activity activity) {
+        schedule(activity, 1);
+    }
+
+    @RabbitListener(queues = "${rabbitmq.reprocess.queue:activity.reprocess.queue}",
+            containerFactory = "reprocessListenerContainerFactory")
+    public void reprocess(Activity activity, @Header(name = ATTEMPT_HEADER, defaultValue = "1") int attempt) {
+
+        if (geminiCircuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            log.info("Gemini still unavailable, rescheduling activity {} (attempt {})", activity.getId(), attempt);
+            schedule(activity, attempt);
+            return;
+        }
+
+        log.info("Reprocessing activity {} (attempt {} of {})", activity.getId(), attempt, maxAttempts);
+        Recommendation recommendation;
+        try {
+            recommendation = activityAIService.generateRecommendation(activity);
+            if (recommendation.isFallback()) {
+                retryLater(activity, attempt);
+                return;
+            }
+
+            //Replace the stored fallback in place so the activity keeps a single recommendation
+            recommendationRepository.findByActivityId(activity.getId())
+                    .ifPresent(fallback -> {
+                        recommendation.setId(fallback.getId());
+                        recommendation.setCreatedAt(fallback.getCreatedAt());
+                    });
+            recommendationRepository.save(recommendation);
+        } catch (RuntimeException e) {
+            log.error("Reprocessing activity {} failed (attempt {}): {}", activity.getId(), attempt, e.getMessage());
+            retryLater(activity, attempt);
+            return;
+        }
+        recommendationService.evict(recommendation);
+        recommendationEventHub.publish(recommendation);
+        log.info("Replaced fallback recommendation for activity {}", activity.getId());
+    }
+
+    private void retryLater(Activity activity, int attempt) {
+
+        if (attempt < maxAttempts) {
+            schedule(activity, attempt + 1);
+            return;
+        }
+        log.error("Giving up on activity {} after {} attempts, moving it to the dead letter queue",
+                activity.getId(), attempt);
+        rabbitTemplate.convertAndSend(exchange, deadLetterRoutingKey, activity);
+    }
+
+    private void schedule(Activity activity, int attempt) {
+        rabbitTemplate.convertAndSend(exchange, delayRoutingKeyPrefix + "." + attempt, activity, message -> {
+            message.getMessageProperties().setHeader(ATTEMPT_HEADER, attempt);
+            return message;
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.dto.ActivityRecommendationPayload;
+import com.fitness.aiservice.dto.RecommendationPayload;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Extracts the recommendation from a raw Gemini {@code generateContent} response.
+ *
+ * <p>The envelope is read token by token: only the path to {@code candidates[0].content.parts[0].text}
+ * is visited and every other field (usage metadata, safety ratings, further candidates) is skipped
+ * without being materialized. The text is then bound straight to a {@link RecommendationPayload}.</p>
+ */
+@Component
+public class GeminiResponseParser {
+
+    private static final String MARKDOWN_FENCE = "```";
+    private static final TypeReference<List<ActivityRecommendationPayload>> BATCH_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    public GeminiResponseParser(ObjectMapper geminiObjectMapper) {
+        this.objectMapper = geminiObjectMapper;
+    }
+
+    /**
+     * Parses a Gemini response into the recommendation payload.
+     * @param response the raw response body
+     * @return the payload
+     * @throws IOException if the response is not valid JSON or the text is not a recommendation
+     * @throws IllegalArgumentException if the response does not contain any candidate text
+     */
+    public RecommendationPayload parse(String response) throws IOException {
+        return objectMapper.readValue(stripMarkdownFence(extractText(response)), RecommendationPayload.class);
+    }
+
+    /**
+     * Parses the Gemini response to a multi-activity prompt.
+     * @param response the raw response body
+     * @return one payload per activity the model answered for
+     * @throws IOException if the response is not valid JSON or the text is not a list of recommendations
+     * @throws IllegalArgumentException if the response does not contain any candidate text
+     */
+    public List<ActivityRecommendationPayload> parseBatch(String response) throws IOException {
+        return objectMapper.readValue(stripMarkdownFence(extractText(response)), BATCH_TYPE);
+    }
+
+    /**
+     * Returns {@code candidates[0].content.parts[0].text} of a Gemini response.
+     */
+    public String extractText(String response) throws IOException {
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            boolean found = parser.nextToken() == JsonToken.START_OBJECT
+                    && moveToField(parser, "candidates") && moveToFirstElement(parser)
+                    && moveToField(parser, "content")
+                    && moveToField(parser, "parts") && moveToFirstElement(parser)
+                    && moveToField(parser, "text")
+                    && parser.currentToken() == JsonToken.VALUE_STRING;
+            if (!found) {
+                throw new IllegalArgumentException("No candidate text in Gemini response");
+            }
+            return parser.getText();
+        }
+    }
+
+    /**
+     * Removes the markdown code fence (```json ... ```) the model wraps its JSON in, if any.
+     */
+    static String stripMarkdownFence(String text) {
+
+        String trimmed = text.strip();
+        if (!trimmed.startsWith(MARKDOWN_FENCE)) {
+            return trimmed;
+        }
+        int contentStart = trimmed.indexOf('\n');
+        int contentEnd = trimmed.lastIndexOf(MARKDOWN_FENCE);
+        if (contentStart < 0 || contentEnd <= contentStart) {
+            return trimmed;
+        }
+        return trimmed.substring(contentStart + 1, contentEnd).strip();
+    }
+
+    /**
+     * With the parser on the start of an object, advances to the value of the given field.
+     * Values of other fields are skipped without being parsed into nodes.
+     */
+    private static boolean moveToField(JsonParser parser, String fieldName) throws IOException {
+
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String currentField = parser.currentName();
+            parser.nextToken();
+            if (fieldName.equals(currentField)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * With the parser on the start of an array, advances to its first element.
+     */
+    private static boolean moveToFirstElement(JsonParser parser) throws IOException {
+
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return false;
+        }
+        JsonToken first = parser.nextToken();
+        return first != null && first != JsonToken.END_ARRAY;
+    }
+}
@@ -1,45 +1,99 @@
 package com.fitness.aiservice.service;
 
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
+/**
+ * Client for the Gemini API.
+ *
+ * <p>Each call runs through the policies of {@link com.fitness.aiservice.config.GeminiResilienceConfig},
+ * outermost first: retry, circuit breaker, rate limiter, bulkhead and a per attempt time limit.
+ * When the circuit breaker is open the call fails immediately with a
+ * {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException}.</p>
+ */
 @Service
 public class GeminiService {
 
 
     private final WebClient webClient;
+    private final Retry retry;
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final Bulkhead bulkhead;
+    private final TimeLimiter timeLimiter;
 
     @Value("${gemini.api.url}")
     private String geminiApiUrl;
     @Value("${gemini.api.key}")
     private String geminiApiKey;
 
-    public GeminiService(WebClient.Builder webClientBuilder){
+    public GeminiService(WebClient.Builder webClientBuilder,
+                         Retry geminiRetry,
+                         CircuitBreaker geminiCircuitBreaker,
+                         RateLimiter geminiRateLimiter,
+                         Bulkhead geminiBulkhead,
+                         TimeLimiter geminiTimeLimiter){
         this.webClient = webClientBuilder.build();
+        this.retry = geminiRetry;
+        this.circuitBreaker = geminiCircuitBreaker;
+        this.rateLimiter = geminiRateLimiter;
+        this.bulkhead = geminiBulkhead;
+        this.timeLimiter = geminiTimeLimiter;
     }
 
     public String getAnswers(String prompt){
-        Map<String,Object> requestBody = Map.of(
-                "contents",new Object[]{
+        return getAnswers(prompt, null);
+    }
+
+    /**
+     * Sends a prompt to Gemini.
+     * @param prompt         the prompt text
+     * @param responseSchema schema the JSON response must follow, or null for a free text response
+     * @return the raw Gemini response
+     */
+    public String getAnswers(String prompt, Map<String,Object> responseSchema){
+        Map<String,Object> requestBody = new HashMap<>();
+        requestBody.put("contents",new Object[]{
                 Map.of("parts",new Object[]{
                         Map.of("text",prompt)
                 })
         });
+        if (responseSchema != null) {
+            //Structured output, the model answers with JSON matching the schema and nothing else
+            requestBody.put("generationConfig", Map.of(
+                    "responseMimeType", MediaType.APPLICATION_JSON_VALUE,
+                    "responseSchema", responseSchema));
+        }
 
-        String response = webClient.post()
+        Supplier<String> call = () -> webClient.post()
                 .uri(geminiApiUrl)
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("x-goog-api-key",geminiApiKey)
                 .bodyValue(requestBody)
                 .retrieve()
                 .bodyToMono(String.class)
+                .transformDeferred(TimeLimiterOperator.of(timeLimiter))
                 .block();
 
-        return response;
+        //Callers run on virtual threads, so waiting for permits and retry backoff blocks no platform thread
+        Supplier<String> resilientCall = Retry.decorateSupplier(retry,
+                CircuitBreaker.decorateSupplier(circuitBreaker,
+                        RateLimiter.decorateSupplier(rateLimiter,
+                                Bulkhead.decorateSupplier(bulkhead, call))));
+
+        return resilientCall.get();
     }
 }
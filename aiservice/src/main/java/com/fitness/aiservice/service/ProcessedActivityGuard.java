@@ -0,0 +1,84 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.repository.RecommendationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Drops duplicate deliveries of an activity before any Gemini call is made.
+ *
+ * <p>Activity ids that were claimed recently are kept in a bounded in-memory set, which also covers
+ * redeliveries that arrive while the first delivery is still being processed. Ids not in the set are
+ * checked against the stored recommendations. The unique {@code activityId} index and the upserts of
+ * {@link RecommendationBulkWriter} remain the last line of defence across instances.</p>
+ */
+@Component
+public class ProcessedActivityGuard {
+
+    private final RecommendationRepository recommendationRepository;
+    private final Cache<String, Boolean> seenActivities;
+    private final Counter skippedDuplicates;
+
+    public ProcessedActivityGuard(RecommendationRepository recommendationRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${ai.idempotency.max-size:100000}") long maxSize,
+                                  @Value("${ai.idempotency.ttl:1h}") Duration ttl) {
+        this.recommendationRepository = recommendationRepository;
+        this.seenActivities = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.skippedDuplicates = Counter.builder("ai.duplicates.skipped")
+                .description("Activity deliveries dropped because the activity was already processed")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, seenActivities, "processedActivities");
+    }
+
+    /**
+     * Claims an activity for processing.
+     * @param activityId the activity id
+     * @return true if the caller should process the activity, false if it is a duplicate delivery
+     * @throws RuntimeException if the stored recommendations could not be checked, the activity is then not claimed
+     */
+    public boolean tryClaim(String activityId) {
+
+        if (activityId == null) {
+            return true;
+        }
+        if (seenActivities.asMap().putIfAbsent(activityId, Boolean.TRUE) != null) {
+            skippedDuplicates.increment();
+            return false;
+        }
+        boolean processed;
+        try {
+            processed = recommendationRepository.existsByActivityId(activityId);
+        } catch (RuntimeException e) {
+            //Otherwise the redelivery of this activity would be dropped as a duplicate
+            seenActivities.invalidate(activityId);
+            throw e;
+        }
+        if (processed) {
+            skippedDuplicates.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases the claim of an activity whose processing failed, so a redelivery can process it again.
+     * @param activityId the activity id
+     */
+    public void release(String activityId) {
+        if (activityId != null) {
+            seenActivities.invalidate(activityId);
+        }
+    }
+}
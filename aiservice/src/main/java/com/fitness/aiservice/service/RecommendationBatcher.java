@@ -0,0 +1,190 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.Recommendation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects activities from the listener threads into micro-batches that share one Gemini prompt.
+ *
+ * <p>A batch is closed when it holds {@code ai.batch.max-size} activities or {@code ai.batch.max-wait}
+ * has passed since its first activity arrived. Each batch is analysed by
+ * {@link ActivityAIService#generateRecommendations(List)} and stored with a single bulk insert,
+ * while the listener threads that submitted its activities wait for the result. Since listeners only
+ * hand over their next message once the current one is done, a batch never holds more activities
+ * than there are consumers times prefetch.</p>
+ *
+ * <p>Only live uploads in {@code ai.consumer.mode=single} are batched here. The bulk lane gets one prompt per
+ * activity so it never shares a batch with them, and batch mode builds its prompts from the listener batches.</p>
+ *
+ * <p>When the batcher stops, every activity that has not got its result yet is cancelled, so no listener
+ * thread is left waiting during shutdown.</p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "ai.consumer.mode", havingValue = "single", matchIfMissing = true)
+public class RecommendationBatcher {
+
+    private final ActivityAIService activityAIService;
+    private final RecommendationBulkWriter recommendationBulkWriter;
+    private final boolean enabled;
+    private final int maxSize;
+    private final Duration maxWait;
+
+    private final BlockingQueue<PendingActivity> pendingActivities = new LinkedBlockingQueue<>();
+    //Every submitted activity until its result is completed, queued or in a batch
+    private final Set<PendingActivity> unfinishedActivities = ConcurrentHashMap.newKeySet();
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+    private final Counter failedBatches;
+    private volatile boolean running;
+    private Thread collector;
+
+    public RecommendationBatcher(ActivityAIService activityAIService,
+                                 RecommendationBulkWriter recommendationBulkWriter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${ai.batch.enabled:true}") boolean enabled,
+                                 @Value("${ai.batch.max-size:8}") int maxSize,
+                                 @Value("${ai.batch.max-wait:200ms}") Duration maxWait) {
+        this.activityAIService = activityAIService;
+        this.recommendationBulkWriter = recommendationBulkWriter;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.maxWait = maxWait;
+        this.batchTimer = Timer.builder("ai.batch.duration")
+                .description("Time to generate and save the recommendations of one batch")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("ai.batch.size")
+                .description("Activities per batch")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("ai.batch.failures")
+                .description("Batches that failed as a whole")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            running = true;
+            collector = Thread.ofVirtual().name("ai-batch-collector").start(this::collect);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (collector != null) {
+            collector.interrupt();
+        }
+        //Listeners get a CancellationException and requeue their message instead of waiting forever
+        unfinishedActivities.forEach(pendingActivity -> pendingActivity.result().cancel(false));
+        batchExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds an activity to the current batch and waits until the batch has been processed.
+     * @param activity the activity to generate a recommendation for
+     * @return the saved recommendation, or empty if one already existed for this activity
+     * @throws java.util.concurrent.CancellationException if the batcher stopped before the activity was processed
+     * @throws java.util.concurrent.CompletionException if the batch or the save of this activity failed
+     */
+    public Optional<Recommendation> submit(Activity activity) {
+
+        PendingActivity pendingActivity = new PendingActivity(activity, new CompletableFuture<>());
+        unfinishedActivities.add(pendingActivity);
+        pendingActivity.result().whenComplete((recommendation, e) -> unfinishedActivities.remove(pendingActivity));
+        pendingActivities.add(pendingActivity);
+        //Submitted while stopping, after stop() cancelled the unfinished activities
+        if (!running) {
+            pendingActivity.result().cancel(false);
+        }
+        return pendingActivity.result().join();
+    }
+
+    int unfinishedActivities() {
+        return unfinishedActivities.size();
+    }
+
+    private void collect() {
+
+        while (running) {
+            try {
+                List<PendingActivity> batch = new ArrayList<>(maxSize);
+                batch.add(pendingActivities.take());
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingActivity next = remaining > 0 ? pendingActivities.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                //Processed on its own thread so the next batch can be collected meanwhile
+                batchExecutor.execute(() -> process(batch));
+            } catch (InterruptedException | RejectedExecutionException e) {
+                //Stopping, the activities of the batch being collected are cancelled by stop()
+                return;
+            }
+        }
+    }
+
+    private void process(List<PendingActivity> batch) {
+
+        batchSize.record(batch.size());
+        Timer.Sample sample = Timer.start();
+        try {
+            List<Recommendation> recommendations = activityAIService.generateRecommendations(
+                    batch.stream().map(PendingActivity::activity).toList());
+            List<RecommendationBulkWriter.Outcome> outcomes = recommendationBulkWriter.insertAll(recommendations);
+
+            for (int i = 0; i < batch.size(); i++) {
+                CompletableFuture<Optional<Recommendation>> result = batch.get(i).result();
+                switch (outcomes.get(i)) {
+                    case SAVED -> result.complete(Optional.of(recommendations.get(i)));
+                    case DUPLICATE -> result.complete(Optional.empty());
+                    case FAILED -> result.completeExceptionally(new RuntimeException(
+                            "Could not save recommendation for activity " + batch.get(i).activity().getId()));
+                }
+            }
+            log.info("Processed batch of {} activities", batch.size());
+        } catch (Exception e) {
+            failedBatches.increment();
+            log.error("Batch of {} activities failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pendingActivity -> pendingActivity.result().completeExceptionally(e));
+        } finally {
+            sample.stop(batchTimer);
+        }
+    }
+
+    private record PendingActivity(Activity activity, CompletableFuture<Optional<Recommendation>> result) {
+    }
+}
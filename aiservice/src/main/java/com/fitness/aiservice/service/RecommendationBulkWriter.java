@@ -0,0 +1,111 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Recommendation;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stores recommendations with insert-if-absent upserts on {@code activityId}, many at once in one
+ * unordered Mongo bulk write, and reports the outcome of each.
+ *
+ * <p>A recommendation whose activity already has one is left untouched and reported as a duplicate,
+ * so redelivered or republished activities never create a second document nor overwrite the first.
+ * Unordered, so a failing document does not stop the others from being written.</p>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RecommendationBulkWriter {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    public enum Outcome { SAVED, DUPLICATE, FAILED }
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Stores a recommendation unless its activity already has one.
+     * @param recommendation the recommendation to store
+     * @return the outcome
+     */
+    public Outcome insertIfAbsent(Recommendation recommendation) {
+        return insertAll(List.of(recommendation)).get(0);
+    }
+
+    /**
+     * Stores the recommendations whose activities do not have one yet.
+     * @param recommendations the recommendations to store
+     * @return the outcome of each recommendation, in the same order
+     */
+    public List<Outcome> insertAll(List<Recommendation> recommendations) {
+
+        //Until the write reports an upsert for an index, its activity already had a recommendation
+        List<Outcome> outcomes = new ArrayList<>(Collections.nCopies(recommendations.size(), Outcome.DUPLICATE));
+        if (recommendations.isEmpty()) {
+            return outcomes;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Recommendation.class);
+        for (Recommendation recommendation : recommendations) {
+            bulkOperations.upsert(Query.query(Criteria.where("activityId").is(recommendation.getActivityId())),
+                    setOnInsert(recommendation));
+        }
+
+        try {
+            markUpserted(bulkOperations.execute(), recommendations, outcomes);
+        } catch (BulkOperationException e) {
+            markUpserted(e.getResult(), recommendations, outcomes);
+            for (BulkWriteError error : e.getErrors()) {
+                //Two concurrent upserts for the same activity, the other one won
+                if (error.getCode() == DUPLICATE_KEY) {
+                    continue;
+                }
+                log.error("Could not save recommendation for activity {}: {}",
+                        recommendations.get(error.getIndex()).getActivityId(), error.getMessage());
+                outcomes.set(error.getIndex(), Outcome.FAILED);
+            }
+        }
+        return outcomes;
+    }
+
+    //Auditing does not apply to upserts, so createdAt is set here
+    private Update setOnInsert(Recommendation recommendation) {
+
+        if (recommendation.getCreatedAt() == null) {
+            recommendation.setCreatedAt(LocalDateTime.now());
+        }
+        Document document = new Document();
+        mongoTemplate.getConverter().write(recommendation, document);
+        document.remove("_id");
+        //Taken from the upsert query
+        document.remove("activityId");
+
+        Update update = new Update();
+        document.forEach(update::setOnInsert);
+        return update;
+    }
+
+    private void markUpserted(BulkWriteResult result, List<Recommendation> recommendations, List<Outcome> outcomes) {
+
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            outcomes.set(upsert.getIndex(), Outcome.SAVED);
+            recommendations.get(upsert.getIndex()).setId(upsert.getId().asObjectId().getValue().toHexString());
+        }
+    }
+}
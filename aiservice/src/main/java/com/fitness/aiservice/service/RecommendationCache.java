@@ -0,0 +1,161 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.Recommendation;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Content-addressed cache of AI recommendations, keyed on the normalized features of the activity
+ * that is sent to the LLM.
+ *
+ * <p>Activities that only differ in noise (a few minutes of duration, a handful of calories, the
+ * third digit of a metric) produce the same key and reuse a previously generated recommendation
+ * instead of calling Gemini again. Fallback recommendations are never cached, and activity types
+ * listed in {@code ai.recommendation-cache.excluded-activity-types} always go to the LLM.</p>
+ */
+@Component
+public class RecommendationCache {
+
+    //Significant digits kept for numeric additional metrics, 152 bpm and 148 bpm both become 150
+    private static final MathContext METRIC_PRECISION = new MathContext(2);
+
+    private final Cache<String, CachedRecommendation> cache;
+    private final boolean enabled;
+    private final int durationBucketMinutes;
+    private final int caloriesBucket;
+    private final Set<String> excludedActivityTypes;
+
+    public RecommendationCache(MeterRegistry meterRegistry,
+                               @Value("${ai.recommendation-cache.enabled:true}") boolean enabled,
+                               @Value("${ai.recommendation-cache.max-size:5000}") long maxSize,
+                               @Value("${ai.recommendation-cache.ttl:24h}") Duration ttl,
+                               @Value("${ai.recommendation-cache.duration-bucket-minutes:5}") int durationBucketMinutes,
+                               @Value("${ai.recommendation-cache.calories-bucket:50}") int caloriesBucket,
+                               @Value("${ai.recommendation-cache.excluded-activity-types:}") Set<String> excludedActivityTypes) {
+        this.enabled = enabled;
+        this.durationBucketMinutes = durationBucketMinutes;
+        this.caloriesBucket = caloriesBucket;
+        this.excludedActivityTypes = excludedActivityTypes.stream()
+                .map(type -> type.trim().toUpperCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recommendationCache");
+    }
+
+    /**
+     * Looks up a recommendation generated for an equivalent activity.
+     * @param activity the activity to recommend for
+     * @return a recommendation for this activity built from the cached one, if any
+     */
+    public Optional<Recommendation> get(Activity activity) {
+
+        if (!isCacheable(activity)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(featureKey(activity)))
+                .map(cached -> Recommendation.builder()
+                        .activityId(activity.getId())
+                        .userId(activity.getUserId())
+                        .activityType(activity.getActivityType())
+                        .recommendation(cached.recommendation())
+                        .improvements(cached.improvements())
+                        .suggestions(cached.suggestions())
+                        .safety(cached.safety())
+                        .build());
+    }
+
+    /**
+     * Stores a freshly generated recommendation for reuse by equivalent activities.
+     * @param activity       the activity the recommendation was generated for
+     * @param recommendation the generated recommendation, ignored when it is a fallback
+     */
+    public void put(Activity activity, Recommendation recommendation) {
+
+        if (!isCacheable(activity) || recommendation.isFallback()) {
+            return;
+        }
+        cache.put(featureKey(activity), new CachedRecommendation(
+                recommendation.getRecommendation(),
+                recommendation.getImprovements(),
+                recommendation.getSuggestions(),
+                recommendation.getSafety()));
+    }
+
+    private boolean isCacheable(Activity activity) {
+        return enabled
+                && activity.getActivityType() != null
+                && !excludedActivityTypes.contains(activity.getActivityType().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Builds the SHA-256 of the bucketed, normalized prompt inputs of an activity.
+     */
+    String featureKey(Activity activity) {
+
+        String features = activity.getActivityType().toUpperCase(Locale.ROOT)
+                + "|duration:" + bucket(activity.getDuration(), durationBucketMinutes)
+                + "|calories:" + bucket(activity.getCaloriesBurned(), caloriesBucket)
+                + "|metrics:" + normalize(activity.getAdditionalMetrics());
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(features.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String bucket(Integer value, int bucketSize) {
+        return value == null ? "-" : String.valueOf(Math.round((double) value / bucketSize));
+    }
+
+    private static String normalize(Object value) {
+
+        if (value == null) {
+            return "-";
+        }
+        if (value instanceof Map<?, ?> map) {
+            //Sorted by normalized key so that metric order in the message does not matter
+            Map<String, String> normalized = new TreeMap<>();
+            map.forEach((key, entry) -> normalized.put(String.valueOf(key).trim().toLowerCase(Locale.ROOT), normalize(entry)));
+            return normalized.toString();
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(RecommendationCache::normalize).toList().toString();
+        }
+        if (value instanceof Number number && Double.isFinite(number.doubleValue())) {
+            return new BigDecimal(number.toString()).round(METRIC_PRECISION).stripTrailingZeros().toPlainString();
+        }
+        return String.valueOf(value).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record CachedRecommendation(String recommendation,
+                                        List<String> improvements,
+                                        List<String> suggestions,
+                                        List<String> safety) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Recommendation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory fan-out of newly saved recommendations to the users streaming them.
+ *
+ * <p>Every stream subscriber gets its own small buffered sink. Publishing never blocks the listener
+ * that saved the recommendation: a subscriber whose buffer is full misses the event, which is logged.
+ * Only subscribers connected to this instance are reached.</p>
+ */
+@Component
+@Slf4j
+public class RecommendationEventHub {
+
+    private final Map<String, Set<Sinks.Many<Recommendation>>> subscribers = new ConcurrentHashMap<>();
+    private final int bufferSize;
+
+    public RecommendationEventHub(MeterRegistry meterRegistry,
+                                  @Value("${ai.stream.buffer-size:16}") int bufferSize) {
+        this.bufferSize = bufferSize;
+        meterRegistry.gaugeMapSize("ai.stream.users", Tags.empty(), subscribers);
+    }
+
+    /**
+     * Streams the recommendations saved for a user from now on.
+     * @param userId the user id
+     * @return the recommendations, until the subscriber cancels. Each subscription gets its own sink,
+     *         registered on subscribe and removed on cancel, so a stream that is never subscribed holds nothing.
+     */
+    public Flux<Recommendation> subscribe(String userId) {
+
+        return Flux.defer(() -> {
+            Sinks.Many<Recommendation> sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<Recommendation>get(bufferSize).get());
+            subscribers.compute(userId, (id, sinks) -> {
+                Set<Sinks.Many<Recommendation>> userSinks = sinks != null ? sinks : ConcurrentHashMap.newKeySet();
+                userSinks.add(sink);
+                return userSinks;
+            });
+            return sink.asFlux()
+                    .doFinally(signal -> subscribers.computeIfPresent(userId, (id, sinks) -> {
+                        sinks.remove(sink);
+                        return sinks.isEmpty() ? null : sinks;
+                    }));
+        });
+    }
+
+    int subscriberCount(String userId) {
+        Set<Sinks.Many<Recommendation>> userSinks = subscribers.get(userId);
+        return userSinks != null ? userSinks.size() : 0;
+    }
+
+    /**
+     * Pushes a saved recommendation to the streams of its user.
+     * @param recommendation the recommendation that was saved
+     */
+    public void publish(Recommendation recommendation) {
+
+        if (recommendation.getUserId() == null) {
+            return;
+        }
+        Set<Sinks.Many<Recommendation>> userSinks = subscribers.get(recommendation.getUserId());
+        if (userSinks == null) {
+            return;
+        }
+        for (Sinks.Many<Recommendation> sink : userSinks) {
+            Sinks.EmitResult result;
+            //Listener threads may publish to the same subscriber at once, a sink accepts one emitter at a time
+            synchronized (sink) {
+                result = sink.tryEmitNext(recommendation);
+            }
+            if (result.isFailure()) {
+                log.warn("Could not push recommendation for activity {} to a stream of user {}: {}",
+                        recommendation.getActivityId(), recommendation.getUserId(), result);
+            }
+        }
+    }
+}
@@ -1,27 +1,106 @@
 package com.fitness.aiservice.service;
 
+import com.fitness.aiservice.dto.CachedResponse;
+import com.fitness.aiservice.dto.RecommendationSummary;
+import com.fitness.aiservice.dto.RecommendationSummaryPage;
 import com.fitness.aiservice.model.Recommendation;
 import com.fitness.aiservice.repository.RecommendationRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 
-
+/**
+ * Reads recommendations through an in-memory cache.
+ *
+ * <p>Recommendations are written once and only replaced when a fallback is reprocessed, so reads are
+ * served from the cache until whoever writes a recommendation evicts it. Each cached entry carries its
+ * ETag, computed once when it was loaded. Eviction is local to this instance, so the TTL bounds how long
+ * another instance may serve an outdated entry.</p>
+ */
 @Service
-@RequiredArgsConstructor
 public class RecommendationService {
 
     private final RecommendationRepository recommendationRepository;
+    private final Cache<String, CachedResponse<List<Recommendation>>> userRecommendations;
+    private final Cache<String, CachedResponse<Recommendation>> activityRecommendations;
+
+    @Value("${ai.summary.page.max-size:100}")
+    private int maxSummaryPageSize;
+
+    public RecommendationService(RecommendationRepository recommendationRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${ai.read-cache.max-size:10000}") long maxSize,
+                                 @Value("${ai.read-cache.ttl:2m}") Duration ttl) {
+        this.recommendationRepository = recommendationRepository;
+        this.userRecommendations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.activityRecommendations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userRecommendations, "userRecommendations");
+        CaffeineCacheMetrics.monitor(meterRegistry, activityRecommendations, "activityRecommendations");
+    }
 
-    public List<Recommendation> getUserRecommendations(String userId) {
+    public CachedResponse<List<Recommendation>> getUserRecommendations(String userId) {
 
-        return recommendationRepository.findByUserId(userId);
+        return userRecommendations.get(userId,
+                key -> CachedResponse.of(recommendationRepository.findByUserId(key)));
     }
 
-    public Recommendation getActivityRecommendations(String activityId) {
+    public CachedResponse<Recommendation> getActivityRecommendations(String activityId) {
+
+        //Misses are not cached, the recommendation of a new activity may be saved at any moment.
+        //Loading inside get() makes an evict that races with the load wait for it and drop what it loaded,
+        //where a separate put could store a read from before the write after the evict ran.
+        return activityRecommendations.get(activityId, key -> CachedResponse.of(recommendationRepository.findByActivityId(key)
+                .orElseThrow(() -> new RuntimeException("No recommendation found for this activity: " + key))));
+    }
+
+    /**
+     * Returns one page of a user's recommendations as summaries, newest first.
+     * @param userId the user id
+     * @param page   the zero based page number
+     * @param size   the page size, capped at {@code ai.summary.page.max-size}
+     * @return the page
+     */
+    public RecommendationSummaryPage getUserRecommendationSummaries(String userId, int page, int size) {
+
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, maxSummaryPageSize));
+
+        //Fetch one extra summary to know whether another page follows without a count query
+        List<RecommendationSummary> summaries = recommendationRepository.findSummariesByUserId(
+                userId, (long) pageNumber * pageSize, pageSize + 1);
+
+        boolean hasMore = summaries.size() > pageSize;
+        return new RecommendationSummaryPage(
+                hasMore ? summaries.subList(0, pageSize) : summaries,
+                pageNumber,
+                pageSize,
+                hasMore);
+    }
 
-        return recommendationRepository.findByActivityId(activityId)
-                .orElseThrow(() -> new RuntimeException("No recommendation found for this activity: " + activityId));
+    /**
+     * Evicts the cached reads a newly written recommendation affects.
+     * @param recommendation the recommendation that was saved
+     */
+    public void evict(Recommendation recommendation) {
+        if (recommendation.getUserId() != null) {
+            userRecommendations.invalidate(recommendation.getUserId());
+        }
+        if (recommendation.getActivityId() != null) {
+            activityRecommendations.invalidate(recommendation.getActivityId());
+        }
     }
 }
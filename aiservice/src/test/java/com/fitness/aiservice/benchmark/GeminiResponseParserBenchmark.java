@@ -0,0 +1,121 @@
+package com.fitness.aiservice.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.config.JacksonConfig;
+import com.fitness.aiservice.dto.RecommendationPayload;
+import com.fitness.aiservice.service.GeminiResponseParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming {@link GeminiResponseParser} with the tree based parsing it replaced
+ * (new ObjectMapper per call, two full trees, regex fence stripping).
+ *
+ * <p>Responses are generated with the shape of a real {@code generateContent} reply: safety ratings,
+ * usage metadata and, for the larger sizes, longer texts and extra candidates.
+ * Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.fitness.aiservice.benchmark.GeminiResponseParserBenchmark -Dexec.classpathScope=test}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GeminiResponseParserBenchmark {
+
+    //Approximate response sizes: a terse answer, a typical one and a verbose one with three candidates
+    @Param({"2", "8", "32"})
+    private int sentencesPerField;
+
+    private GeminiResponseParser geminiResponseParser;
+    private String response;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new JacksonConfig().geminiObjectMapper();
+        geminiResponseParser = new GeminiResponseParser(objectMapper);
+
+        String recommendation = objectMapper.writeValueAsString(recommendation());
+        String fencedText = "```json\n" + recommendation + "\n```";
+        int candidateCount = sentencesPerField >= 32 ? 3 : 1;
+
+        List<Map<String, Object>> candidates = new ArrayList<>();
+        for (int i = 0; i < candidateCount; i++) {
+            candidates.add(Map.of(
+                    "content", Map.of("role", "model", "parts", List.of(Map.of("text", fencedText))),
+                    "finishReason", "STOP",
+                    "index", i,
+                    "safetyRatings", List.of(
+                            Map.of("category", "HARM_CATEGORY_HARASSMENT", "probability", "NEGLIGIBLE"),
+                            Map.of("category", "HARM_CATEGORY_HATE_SPEECH", "probability", "NEGLIGIBLE"),
+                            Map.of("category", "HARM_CATEGORY_DANGEROUS_CONTENT", "probability", "NEGLIGIBLE"))));
+        }
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("candidates", candidates);
+        envelope.put("usageMetadata", Map.of("promptTokenCount", 212, "candidatesTokenCount", 640, "totalTokenCount", 852));
+        envelope.put("modelVersion", "gemini-2.0-flash");
+        response = objectMapper.writeValueAsString(envelope);
+    }
+
+    @Benchmark
+    public RecommendationPayload streamingParser() throws Exception {
+        return geminiResponseParser.parse(response);
+    }
+
+    @Benchmark
+    public JsonNode treeParser() throws Exception {
+        //The parsing previously done in ActivityAIService.processAiResponse
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode rootNode = objectMapper.readTree(response);
+        String jsonContent = rootNode.path("candidates").get(0)
+                .path("content").path("parts").get(0)
+                .path("text").asText()
+                .replaceAll("```json\\n", "")
+                .replaceAll("\\n```", "")
+                .trim();
+        return objectMapper.readTree(jsonContent);
+    }
+
+    private Map<String, Object> recommendation() {
+        Map<String, Object> recommendation = new LinkedHashMap<>();
+        recommendation.put("analysis", Map.of(
+                "overall", text("Overall"),
+                "pace", text("Pace"),
+                "heartRate", text("Heart rate"),
+                "caloriesBurned", text("Calories")));
+        recommendation.put("improvements", List.of(
+                Map.of("area", "Cadence", "recommendation", text("Cadence")),
+                Map.of("area", "Recovery", "recommendation", text("Recovery"))));
+        recommendation.put("suggestions", List.of(
+                Map.of("workout", "Intervals", "description", text("Intervals")),
+                Map.of("workout", "Long run", "description", text("Long run"))));
+        recommendation.put("safety", List.of(text("Warm up"), text("Hydration")));
+        return recommendation;
+    }
+
+    private String text(String subject) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentencesPerField; i++) {
+            text.append(subject).append(" was consistent with the last few sessions and leaves room for a gradual increase. ");
+        }
+        return text.toString().trim();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeminiResponseParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
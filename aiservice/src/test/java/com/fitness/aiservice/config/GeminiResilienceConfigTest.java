@@ -0,0 +1,77 @@
+package com.fitness.aiservice.config;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiResilienceConfigTest {
+
+    @Test
+    @DisplayName("Should treat throttling, server errors, unreachable hosts and timeouts as transient")
+    void shouldBeTransient_WhenGeminiMayRecover() {
+        // When & Then
+        assertTrue(GeminiResilienceConfig.isTransient(responseException(HttpStatus.TOO_MANY_REQUESTS)));
+        assertTrue(GeminiResilienceConfig.isTransient(responseException(HttpStatus.INTERNAL_SERVER_ERROR)));
+        assertTrue(GeminiResilienceConfig.isTransient(responseException(HttpStatus.SERVICE_UNAVAILABLE)));
+        assertTrue(GeminiResilienceConfig.isTransient(new WebClientRequestException(new IOException("Connection refused"),
+                HttpMethod.POST, URI.create("http://gemini"), new HttpHeaders())));
+        assertTrue(GeminiResilienceConfig.isTransient(Exceptions.propagate(new TimeoutException("Did not observe any item"))));
+    }
+
+    @Test
+    @DisplayName("Should not treat client errors or an open circuit breaker as transient")
+    void shouldNotBeTransient_WhenRetryCannotHelp() {
+        // When & Then
+        assertFalse(GeminiResilienceConfig.isTransient(responseException(HttpStatus.BAD_REQUEST)));
+        assertFalse(GeminiResilienceConfig.isTransient(responseException(HttpStatus.UNAUTHORIZED)));
+        assertFalse(GeminiResilienceConfig.isTransient(responseException(HttpStatus.NOT_FOUND)));
+        assertFalse(GeminiResilienceConfig.isTransient(
+                CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("gemini"))));
+    }
+
+    @Test
+    @DisplayName("Should hand out the quota per second when it splits into whole permits")
+    void shouldRefillEverySecond_WhenQuotaSplitsEvenly() {
+        // When
+        RateLimiterConfig config = GeminiResilienceConfig.rateLimiterConfig(120, Duration.ofSeconds(30));
+
+        // Then
+        assertEquals(Duration.ofSeconds(1), config.getLimitRefreshPeriod());
+        assertEquals(2, config.getLimitForPeriod());
+        assertEquals(Duration.ofSeconds(30), config.getTimeoutDuration());
+    }
+
+    @Test
+    @DisplayName("Should hand out one permit per period when the quota does not split into whole permits")
+    void shouldRefillOnePermit_WhenQuotaDoesNotSplitEvenly() {
+        // When
+        RateLimiterConfig slow = GeminiResilienceConfig.rateLimiterConfig(15, Duration.ofSeconds(30));
+        RateLimiterConfig uneven = GeminiResilienceConfig.rateLimiterConfig(90, Duration.ofSeconds(30));
+
+        // Then
+        assertEquals(Duration.ofSeconds(4), slow.getLimitRefreshPeriod());
+        assertEquals(1, slow.getLimitForPeriod());
+        assertEquals(Duration.ofMillis(666), uneven.getLimitRefreshPeriod().truncatedTo(ChronoUnit.MILLIS));
+        assertEquals(1, uneven.getLimitForPeriod());
+    }
+
+    private static WebClientResponseException responseException(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), new HttpHeaders(), new byte[0], null);
+    }
+}
@@ -0,0 +1,164 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.Recommendation;
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.net.ConnectException;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityBatchMessageListenerTest {
+
+    @Mock
+    private ActivityAIService activityAIService;
+    @Mock
+    private RecommendationBulkWriter recommendationBulkWriter;
+    @Mock
+    private FallbackReprocessor fallbackReprocessor;
+    @Mock
+    private ProcessedActivityGuard processedActivityGuard;
+    @Mock
+    private RecommendationService recommendationService;
+    @Mock
+    private RecommendationEventHub recommendationEventHub;
+    @Mock
+    private MessageConverter jsonMessageConverter;
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+    @Mock
+    private Channel channel;
+
+    private ActivityBatchMessageListener activityBatchMessageListener;
+
+    @BeforeEach
+    void setUp() {
+        activityBatchMessageListener = new ActivityBatchMessageListener(activityAIService, recommendationBulkWriter,
+                fallbackReprocessor, processedActivityGuard, recommendationService, recommendationEventHub,
+                jsonMessageConverter, rabbitTemplate);
+    }
+
+    @Test
+    @DisplayName("Should requeue only the message that could not be rescheduled and settle the rest")
+    void shouldRequeueMessage_WhenReschedulingFails() throws Exception {
+        // Given
+        Activity failed = activity("a-1");
+        Activity saved = activity("a-2");
+        Message failedMessage = message(failed, 1);
+        Message savedMessage = message(saved, 2);
+        when(processedActivityGuard.tryClaim(any())).thenReturn(true);
+        when(activityAIService.generateRecommendations(List.of(failed, saved)))
+                .thenReturn(List.of(recommendation("a-1"), recommendation("a-2")));
+        when(recommendationBulkWriter.insertAll(any())).thenReturn(List.of(
+                RecommendationBulkWriter.Outcome.FAILED, RecommendationBulkWriter.Outcome.SAVED));
+        doThrow(new AmqpConnectException(new ConnectException("refused")))
+                .when(fallbackReprocessor).scheduleFirstAttempt(failed);
+
+        // When
+        activityBatchMessageListener.processActivities(List.of(failedMessage, savedMessage), channel);
+
+        // Then
+        verify(channel).basicNack(1, false, true);
+        verify(channel).basicAck(2, false);
+        verify(recommendationEventHub).publish(any(Recommendation.class));
+    }
+
+    @Test
+    @DisplayName("Should not settle a saved message twice when publishing it fails after the ack")
+    void shouldKeepAck_WhenPublishFailsAfterSave() throws Exception {
+        // Given
+        Activity activity = activity("a-1");
+        Message message = message(activity, 1);
+        when(processedActivityGuard.tryClaim("a-1")).thenReturn(true);
+        when(activityAIService.generateRecommendations(List.of(activity))).thenReturn(List.of(recommendation("a-1")));
+        when(recommendationBulkWriter.insertAll(any())).thenReturn(List.of(RecommendationBulkWriter.Outcome.SAVED));
+        doThrow(new IllegalStateException("hub closed")).when(recommendationEventHub).publish(any());
+
+        // When
+        activityBatchMessageListener.processActivities(List.of(message), channel);
+
+        // Then
+        verify(channel).basicAck(1, false);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Should reschedule an activity whose duplicate check failed instead of requeueing it")
+    void shouldReschedule_WhenClaimCheckFails() throws Exception {
+        // Given
+        Activity activity = activity("a-1");
+        Message message = message(activity, 1);
+        when(processedActivityGuard.tryClaim("a-1")).thenThrow(new IllegalStateException("mongo down"));
+
+        // When
+        activityBatchMessageListener.processActivities(List.of(message), channel);
+
+        // Then
+        verify(fallbackReprocessor).scheduleFirstAttempt(activity);
+        verify(channel).basicAck(1, false);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        verifyNoInteractions(activityAIService);
+    }
+
+    @Test
+    @DisplayName("Should requeue every activity of a failed batch that could not be rescheduled")
+    void shouldRequeueBatch_WhenBatchFailsAndBrokerIsDown() throws Exception {
+        // Given
+        Activity first = activity("a-1");
+        Activity second = activity("a-2");
+        when(processedActivityGuard.tryClaim(any())).thenReturn(true);
+        when(activityAIService.generateRecommendations(any())).thenThrow(new IllegalStateException("gemini down"));
+        doThrow(new AmqpConnectException(new ConnectException("refused")))
+                .when(fallbackReprocessor).scheduleFirstAttempt(any());
+
+        // When
+        activityBatchMessageListener.processActivities(List.of(message(first, 1), message(second, 2)), channel);
+
+        // Then
+        verify(channel).basicNack(1, false, true);
+        verify(channel).basicNack(2, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        verify(processedActivityGuard).release("a-1");
+        verify(processedActivityGuard).release("a-2");
+    }
+
+    private Message message(Activity activity, long deliveryTag) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setDeliveryTag(deliveryTag);
+        Message message = new Message(activity.getId().getBytes(), messageProperties);
+        lenient().when(jsonMessageConverter.fromMessage(eq(message))).thenReturn(activity);
+        return message;
+    }
+
+    private Activity activity(String id) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setUserId("user-" + id);
+        activity.setActivityType("RUNNING");
+        return activity;
+    }
+
+    private Recommendation recommendation(String activityId) {
+        return Recommendation.builder()
+                .activityId(activityId)
+                .recommendation("Overall: Solid run")
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.Recommendation;
+import com.fitness.aiservice.repository.RecommendationRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FallbackReprocessorTest {
+
+    private static final String EXCHANGE = "fitness.exchange";
+    private static final String DEAD_LETTER_ROUTING_KEY = "activity.dead";
+
+    @Mock
+    private ActivityAIService activityAIService;
+    @Mock
+    private RecommendationRepository recommendationRepository;
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+    @Mock
+    private CircuitBreaker geminiCircuitBreaker;
+    @Mock
+    private RecommendationService recommendationService;
+    @Mock
+    private RecommendationEventHub recommendationEventHub;
+
+    private FallbackReprocessor fallbackReprocessor;
+
+    @BeforeEach
+    void setUp() {
+        fallbackReprocessor = new FallbackReprocessor(activityAIService, recommendationRepository, rabbitTemplate,
+                geminiCircuitBreaker, recommendationService, recommendationEventHub);
+        ReflectionTestUtils.setField(fallbackReprocessor, "exchange", EXCHANGE);
+        ReflectionTestUtils.setField(fallbackReprocessor, "delayRoutingKeyPrefix", "activity.retry");
+        ReflectionTestUtils.setField(fallbackReprocessor, "deadLetterRoutingKey", DEAD_LETTER_ROUTING_KEY);
+        ReflectionTestUtils.setField(fallbackReprocessor, "maxAttempts", 3);
+    }
+
+    @Test
+    @DisplayName("Should reschedule the same attempt while the circuit breaker is open")
+    void shouldRescheduleSameAttempt_WhenCircuitBreakerIsOpen() {
+        // Given
+        Activity activity = activity();
+        when(geminiCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.OPEN);
+
+        // When
+        fallbackReprocessor.reprocess(activity, 2);
+
+        // Then
+        assertEquals(2, scheduledAttempt("activity.retry.2", activity));
+        verifyNoInteractions(activityAIService, recommendationRepository);
+    }
+
+    @Test
+    @DisplayName("Should replace the stored fallback in place, then evict and publish it")
+    void shouldReplaceFallbackInPlace_WhenReprocessingSucceeds() {
+        // Given
+        Activity activity = activity();
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 4, 7, 30);
+        Recommendation fallback = recommendation(true);
+        fallback.setId("rec-1");
+        fallback.setCreatedAt(createdAt);
+        Recommendation replacement = recommendation(false);
+        when(geminiCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(activityAIService.generateRecommendation(activity)).thenReturn(replacement);
+        when(recommendationRepository.findByActivityId("a-1")).thenReturn(Optional.of(fallback));
+
+        // When
+        fallbackReprocessor.reprocess(activity, 1);
+
+        // Then
+        assertEquals("rec-1", replacement.getId());
+        assertEquals(createdAt, replacement.getCreatedAt());
+        InOrder inOrder = inOrder(recommendationRepository, recommendationService, recommendationEventHub);
+        inOrder.verify(recommendationRepository).save(replacement);
+        inOrder.verify(recommendationService).evict(replacement);
+        inOrder.verify(recommendationEventHub).publish(replacement);
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    @Test
+    @DisplayName("Should move to the delay queue of the next attempt when Gemini falls back again")
+    void shouldScheduleNextAttempt_WhenRecommendationIsFallbackAgain() {
+        // Given
+        Activity activity = activity();
+        when(geminiCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(activityAIService.generateRecommendation(activity)).thenReturn(recommendation(true));
+
+        // When
+        fallbackReprocessor.reprocess(activity, 1);
+
+        // Then
+        assertEquals(2, scheduledAttempt("activity.retry.2", activity));
+        verify(recommendationRepository, never()).save(any());
+        verifyNoInteractions(recommendationService, recommendationEventHub);
+    }
+
+    @Test
+    @DisplayName("Should move to the delay queue of the next attempt when saving fails")
+    void shouldScheduleNextAttempt_WhenSaveFails() {
+        // Given
+        Activity activity = activity();
+        when(geminiCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(activityAIService.generateRecommendation(activity)).thenReturn(recommendation(false));
+        when(recommendationRepository.findByActivityId("a-1")).thenReturn(Optional.empty());
+        when(recommendationRepository.save(any())).thenThrow(new IllegalStateException("mongo down"));
+
+        // When
+        fallbackReprocessor.reprocess(activity, 2);
+
+        // Then
+        assertEquals(3, scheduledAttempt("activity.retry.3", activity));
+        verifyNoInteractions(recommendationService, recommendationEventHub);
+    }
+
+    @Test
+    @DisplayName("Should schedule a new activity on the delay queue of attempt 1")
+    void shouldScheduleFirstAttempt() {
+        // Given
+        Activity activity = activity();
+
+        // When
+        fallbackReprocessor.scheduleFirstAttempt(activity);
+
+        // Then
+        assertEquals(1, scheduledAttempt("activity.retry.1", activity));
+    }
+
+    @Test
+    @DisplayName("Should park the activity on the dead letter queue after the last attempt")
+    void shouldDeadLetter_WhenMaxAttemptsReached() {
+        // Given
+        Activity activity = activity();
+        when(geminiCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(activityAIService.generateRecommendation(activity)).thenReturn(recommendation(true));
+
+        // When
+        fallbackReprocessor.reprocess(activity, 3);
+
+        // Then
+        verify(rabbitTemplate).convertAndSend(EXCHANGE, DEAD_LETTER_ROUTING_KEY, activity);
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class),
+                any(MessagePostProcessor.class));
+    }
+
+    //Attempt header the activity was sent to the delay queue with
+    private int scheduledAttempt(String routingKey, Activity activity) {
+
+        ArgumentCaptor<MessagePostProcessor> postProcessor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq(EXCHANGE), eq(routingKey), eq(activity), postProcessor.capture());
+        Message message = postProcessor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        return message.getMessageProperties().<Integer>getHeader(FallbackReprocessor.ATTEMPT_HEADER);
+    }
+
+    private Activity activity() {
+        Activity activity = new Activity();
+        activity.setId("a-1");
+        activity.setUserId("user-1");
+        activity.setActivityType("RUNNING");
+        return activity;
+    }
+
+    private Recommendation recommendation(boolean fallback) {
+        return Recommendation.builder()
+                .activityId("a-1")
+                .userId("user-1")
+                .recommendation(fallback ? "Overall: Analysis unavailable" : "Overall: Solid run")
+                .fallback(fallback)
+                .build();
+    }
+}
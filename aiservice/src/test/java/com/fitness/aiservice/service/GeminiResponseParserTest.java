@@ -0,0 +1,95 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.config.JacksonConfig;
+import com.fitness.aiservice.dto.ActivityRecommendationPayload;
+import com.fitness.aiservice.dto.RecommendationPayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiResponseParserTest {
+
+    private GeminiResponseParser geminiResponseParser;
+
+    @BeforeEach
+    void setUp() {
+        geminiResponseParser = new GeminiResponseParser(new JacksonConfig().geminiObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Should bind the fenced recommendation of the first candidate")
+    void shouldParseRecommendation_WhenTextIsFenced() throws Exception {
+        // Given
+        String response = """
+                {
+                  "candidates": [
+                    {
+                      "safetyRatings": [{"category": "HARM_CATEGORY_HARASSMENT", "probability": "NEGLIGIBLE"}],
+                      "content": {
+                        "role": "model",
+                        "parts": [{"text": "```json\\n{\\"analysis\\": {\\"overall\\": \\"Solid run\\", \\"pace\\": \\"Steady\\"}, \\"improvements\\": [{\\"area\\": \\"Cadence\\", \\"recommendation\\": \\"Shorter strides\\"}], \\"suggestions\\": [{\\"workout\\": \\"Intervals\\", \\"description\\": \\"6x400m\\"}], \\"safety\\": [\\"Hydrate\\"], \\"confidence\\": 0.9}\\n```"}]
+                      }
+                    },
+                    {"content": {"parts": [{"text": "second candidate"}]}}
+                  ],
+                  "usageMetadata": {"promptTokenCount": 120, "candidatesTokenCount": 80}
+                }
+                """;
+
+        // When
+        RecommendationPayload payload = geminiResponseParser.parse(response);
+
+        // Then
+        assertEquals("Solid run", payload.getAnalysis().getOverall());
+        assertEquals("Steady", payload.getAnalysis().getPace());
+        assertNull(payload.getAnalysis().getHeartRate());
+        assertEquals("Cadence", payload.getImprovements().get(0).getArea());
+        assertEquals("Shorter strides", payload.getImprovements().get(0).getDetail());
+        assertEquals("Intervals", payload.getSuggestions().get(0).getWorkout());
+        assertEquals(List.of("Hydrate"), payload.getSafety());
+    }
+
+    @Test
+    @DisplayName("Should bind one payload per activity of a multi-activity answer")
+    void shouldParseBatch_WhenAnswerCoversSeveralActivities() throws Exception {
+        // Given
+        String response = """
+                {"candidates": [{"content": {"parts": [{"text": "[{\\"activityId\\": \\"a1\\", \\"recommendation\\": {\\"safety\\": [\\"Stretch\\"]}}, {\\"activityId\\": \\"a2\\", \\"recommendation\\": {\\"analysis\\": {\\"overall\\": \\"Easy ride\\"}}}]"}]}}]}
+                """;
+
+        // When
+        List<ActivityRecommendationPayload> payloads = geminiResponseParser.parseBatch(response);
+
+        // Then
+        assertEquals(2, payloads.size());
+        assertEquals("a1", payloads.get(0).getActivityId());
+        assertEquals(List.of("Stretch"), payloads.get(0).getRecommendation().getSafety());
+        assertEquals("a2", payloads.get(1).getActivityId());
+        assertEquals("Easy ride", payloads.get(1).getRecommendation().getAnalysis().getOverall());
+    }
+
+    @Test
+    @DisplayName("Should fail when the response has no candidate text")
+    void shouldThrow_WhenNoCandidateText() {
+        // Given
+        String response = """
+                {"candidates": [], "promptFeedback": {"blockReason": "SAFETY"}}
+                """;
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> geminiResponseParser.parse(response));
+    }
+
+    @Test
+    @DisplayName("Should strip markdown fences with or without a language tag")
+    void shouldStripMarkdownFence() {
+        // When / Then
+        assertEquals("{\"a\": 1}", GeminiResponseParser.stripMarkdownFence("```json\n{\"a\": 1}\n```"));
+        assertEquals("{\"a\": 1}", GeminiResponseParser.stripMarkdownFence("  ```\n{\"a\": 1}```  "));
+        assertEquals("{\"a\": 1}", GeminiResponseParser.stripMarkdownFence("{\"a\": 1}"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.config.GeminiResilienceConfig;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiServiceTest {
+
+    //Responses the stubbed Gemini API gives, one per call, the last one repeated
+    private final Queue<Mono<ClientResponse>> responses = new ArrayDeque<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private CircuitBreaker circuitBreaker;
+    private GeminiService geminiService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GeminiResilienceConfig config = new GeminiResilienceConfig();
+        ReflectionTestUtils.setField(config, "requestsPerMinute", 6000);
+        ReflectionTestUtils.setField(config, "rateLimitMaxWait", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "maxInFlight", 8);
+        ReflectionTestUtils.setField(config, "bulkheadMaxWait", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "timeout", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(config, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(config, "retryInitialBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(config, "retryMultiplier", 2.0);
+        ReflectionTestUtils.setField(config, "retryJitter", 0.5);
+        ReflectionTestUtils.setField(config, "failureRateThreshold", 50f);
+        ReflectionTestUtils.setField(config, "slidingWindowSize", 20);
+        ReflectionTestUtils.setField(config, "minimumCalls", 10);
+        ReflectionTestUtils.setField(config, "openDuration", Duration.ofSeconds(30));
+        circuitBreaker = config.geminiCircuitBreaker(meterRegistry);
+
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(this::exchange);
+        geminiService = new GeminiService(webClientBuilder, config.geminiRetry(meterRegistry), circuitBreaker,
+                config.geminiRateLimiter(meterRegistry), config.geminiBulkhead(meterRegistry),
+                config.geminiTimeLimiter(meterRegistry));
+        ReflectionTestUtils.setField(geminiService, "geminiApiUrl", "http://gemini/v1beta/models/gemini:generateContent");
+        ReflectionTestUtils.setField(geminiService, "geminiApiKey", "test-key");
+    }
+
+    @Test
+    @DisplayName("Should retry a throttled call until Gemini answers")
+    void shouldRetry_WhenGeminiThrottles() {
+        // Given
+        responses.add(json(HttpStatus.TOO_MANY_REQUESTS));
+        responses.add(json(HttpStatus.OK));
+
+        // When
+        String answer = geminiService.getAnswers("prompt");
+
+        // Then
+        assertEquals("{\"candidates\":[]}", answer);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should retry server errors up to the maximum attempts")
+    void shouldRetryUpToMaxAttempts_WhenGeminiFails() {
+        // Given
+        responses.add(json(HttpStatus.SERVICE_UNAVAILABLE));
+
+        // When
+        WebClientResponseException exception = assertThrows(WebClientResponseException.class,
+                () -> geminiService.getAnswers("prompt"));
+
+        // Then
+        assertEquals(503, exception.getStatusCode().value());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should retry a call that times out")
+    void shouldRetry_WhenCallTimesOut() {
+        // Given
+        responses.add(Mono.never());
+        responses.add(json(HttpStatus.OK));
+
+        // When
+        String answer = geminiService.getAnswers("prompt");
+
+        // Then
+        assertEquals("{\"candidates\":[]}", answer);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should not retry a rejected request")
+    void shouldNotRetry_WhenRequestIsRejected() {
+        // Given
+        responses.add(json(HttpStatus.BAD_REQUEST));
+
+        // When
+        assertThrows(WebClientResponseException.class, () -> geminiService.getAnswers("prompt"));
+
+        // Then
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should fail fast without calling or retrying while the circuit breaker is open")
+    void shouldPassThroughCallNotPermitted_WhenCircuitBreakerIsOpen() {
+        // Given
+        circuitBreaker.transitionToOpenState();
+
+        // When & Then
+        assertThrows(CallNotPermittedException.class, () -> geminiService.getAnswers("prompt"));
+        assertEquals(0, calls.get());
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request) {
+        calls.incrementAndGet();
+        return responses.size() > 1 ? responses.poll() : responses.peek();
+    }
+
+    private static Mono<ClientResponse> json(HttpStatus status) {
+        return Mono.fromSupplier(() -> ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(status == HttpStatus.OK ? "{\"candidates\":[]}" : "{}")
+                .build());
+    }
+}
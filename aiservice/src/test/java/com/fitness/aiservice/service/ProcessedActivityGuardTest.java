@@ -0,0 +1,97 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.repository.RecommendationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedActivityGuardTest {
+
+    @Mock
+    private RecommendationRepository recommendationRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProcessedActivityGuard processedActivityGuard;
+
+    @BeforeEach
+    void setUp() {
+        processedActivityGuard = new ProcessedActivityGuard(recommendationRepository, meterRegistry,
+                100, Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("Should claim an activity without a stored recommendation")
+    void shouldClaim_WhenActivityIsNew() {
+        // Given
+        when(recommendationRepository.existsByActivityId("a-1")).thenReturn(false);
+
+        // When & Then
+        assertTrue(processedActivityGuard.tryClaim("a-1"));
+    }
+
+    @Test
+    @DisplayName("Should drop a redelivery of a claimed activity without querying Mongo again")
+    void shouldDrop_WhenActivityAlreadyClaimed() {
+        // Given
+        when(recommendationRepository.existsByActivityId("a-1")).thenReturn(false);
+        processedActivityGuard.tryClaim("a-1");
+
+        // When & Then
+        assertFalse(processedActivityGuard.tryClaim("a-1"));
+        verify(recommendationRepository, times(1)).existsByActivityId("a-1");
+        assertEquals(1.0, meterRegistry.get("ai.duplicates.skipped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should drop an activity that already has a stored recommendation")
+    void shouldDrop_WhenRecommendationStored() {
+        // Given
+        when(recommendationRepository.existsByActivityId("a-1")).thenReturn(true);
+
+        // When & Then
+        assertFalse(processedActivityGuard.tryClaim("a-1"));
+        assertEquals(1.0, meterRegistry.get("ai.duplicates.skipped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should process the redelivery when the repository check failed")
+    void shouldClaimRedelivery_WhenRepositoryThrows() {
+        // Given
+        when(recommendationRepository.existsByActivityId("a-1"))
+                .thenThrow(new DataAccessResourceFailureException("Mongo unavailable"))
+                .thenReturn(false);
+        assertThrows(DataAccessResourceFailureException.class, () -> processedActivityGuard.tryClaim("a-1"));
+
+        // When
+        boolean claimed = processedActivityGuard.tryClaim("a-1");
+
+        // Then
+        assertTrue(claimed);
+        assertEquals(0.0, meterRegistry.get("ai.duplicates.skipped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should process the redelivery of a released activity")
+    void shouldClaimRedelivery_WhenReleased() {
+        // Given
+        when(recommendationRepository.existsByActivityId("a-1")).thenReturn(false);
+        processedActivityGuard.tryClaim("a-1");
+
+        // When
+        processedActivityGuard.release("a-1");
+
+        // Then
+        assertTrue(processedActivityGuard.tryClaim("a-1"));
+    }
+}
@@ -0,0 +1,213 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.Recommendation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationBatcherTest {
+
+    @Mock
+    private ActivityAIService activityAIService;
+
+    @Mock
+    private RecommendationBulkWriter recommendationBulkWriter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RecommendationBatcher recommendationBatcher;
+
+    @AfterEach
+    void tearDown() {
+        recommendationBatcher.stop();
+    }
+
+    @Test
+    @DisplayName("Should close a batch as soon as it is full")
+    void shouldProcessBatch_WhenMaxSizeReached() throws Exception {
+        // Given
+        start(2, Duration.ofMinutes(1));
+        Activity first = activity("a-1");
+        Activity second = activity("a-2");
+        when(activityAIService.generateRecommendations(List.of(first, second)))
+                .thenReturn(List.of(recommendation("a-1"), recommendation("a-2")));
+        when(recommendationBulkWriter.insertAll(anyList()))
+                .thenReturn(List.of(RecommendationBulkWriter.Outcome.SAVED, RecommendationBulkWriter.Outcome.SAVED));
+
+        // When
+        CompletableFuture<Optional<Recommendation>> firstResult = submitAsync(first);
+        awaitQueued(1);
+        CompletableFuture<Optional<Recommendation>> secondResult = submitAsync(second);
+
+        // Then: well before the one minute max-wait
+        assertEquals("a-1", firstResult.get(5, TimeUnit.SECONDS).orElseThrow().getActivityId());
+        assertEquals("a-2", secondResult.get(5, TimeUnit.SECONDS).orElseThrow().getActivityId());
+        verify(activityAIService).generateRecommendations(List.of(first, second));
+    }
+
+    @Test
+    @DisplayName("Should close a partial batch once max-wait has passed")
+    void shouldProcessPartialBatch_WhenMaxWaitPassed() {
+        // Given
+        start(8, Duration.ofMillis(50));
+        Activity activity = activity("a-1");
+        when(activityAIService.generateRecommendations(List.of(activity))).thenReturn(List.of(recommendation("a-1")));
+        when(recommendationBulkWriter.insertAll(anyList())).thenReturn(List.of(RecommendationBulkWriter.Outcome.SAVED));
+
+        // When
+        Optional<Recommendation> result = recommendationBatcher.submit(activity);
+
+        // Then
+        assertEquals("a-1", result.orElseThrow().getActivityId());
+        assertEquals(1, meterRegistry.get("ai.batch.size").summary().count());
+        assertEquals(1.0, meterRegistry.get("ai.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should complete each activity with the outcome of its own insert")
+    void shouldCompleteEachActivity_WithItsOutcome() throws Exception {
+        // Given
+        start(3, Duration.ofMinutes(1));
+        when(activityAIService.generateRecommendations(anyList()))
+                .thenReturn(List.of(recommendation("a-1"), recommendation("a-2"), recommendation("a-3")));
+        when(recommendationBulkWriter.insertAll(anyList())).thenReturn(List.of(
+                RecommendationBulkWriter.Outcome.SAVED,
+                RecommendationBulkWriter.Outcome.DUPLICATE,
+                RecommendationBulkWriter.Outcome.FAILED));
+
+        // When
+        CompletableFuture<Optional<Recommendation>> saved = submitAsync(activity("a-1"));
+        awaitQueued(1);
+        CompletableFuture<Optional<Recommendation>> duplicate = submitAsync(activity("a-2"));
+        awaitQueued(2);
+        CompletableFuture<Optional<Recommendation>> failed = submitAsync(activity("a-3"));
+
+        // Then
+        assertTrue(saved.get(5, TimeUnit.SECONDS).isPresent());
+        assertTrue(duplicate.get(5, TimeUnit.SECONDS).isEmpty());
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals("Could not save recommendation for activity a-3", exception.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Should fail every activity of a batch that fails as a whole")
+    void shouldFailEveryActivity_WhenBatchFails() {
+        // Given
+        start(8, Duration.ofMillis(50));
+        when(activityAIService.generateRecommendations(anyList())).thenThrow(new RuntimeException("Gemini down"));
+
+        // When & Then
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> recommendationBatcher.submit(activity("a-1")));
+        assertEquals("Gemini down", exception.getCause().getMessage());
+        assertEquals(1.0, meterRegistry.get("ai.batch.failures").counter().count());
+        verifyNoInteractions(recommendationBulkWriter);
+    }
+
+    @Test
+    @DisplayName("Should cancel activities of a batch still being collected on stop")
+    void shouldCancelCollectingBatch_OnStop() throws Exception {
+        // Given
+        start(8, Duration.ofMinutes(1));
+        CompletableFuture<Optional<Recommendation>> result = submitAsync(activity("a-1"));
+        awaitQueued(1);
+
+        // When
+        recommendationBatcher.stop();
+
+        // Then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, exception.getCause());
+        verifyNoInteractions(activityAIService);
+    }
+
+    @Test
+    @DisplayName("Should cancel activities of a batch still being processed on stop")
+    void shouldCancelProcessingBatch_OnStop() throws Exception {
+        // Given
+        start(8, Duration.ofMillis(10));
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        when(activityAIService.generateRecommendations(anyList())).thenAnswer(invocation -> {
+            batchStarted.countDown();
+            //Stands for a slow Gemini call, interrupted when the batcher stops
+            Thread.sleep(Duration.ofMinutes(1));
+            return List.of();
+        });
+        CompletableFuture<Optional<Recommendation>> result = submitAsync(activity("a-1"));
+        assertTrue(batchStarted.await(5, TimeUnit.SECONDS));
+
+        // When
+        recommendationBatcher.stop();
+
+        // Then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Should cancel activities submitted after stop")
+    void shouldCancel_WhenSubmittedAfterStop() {
+        // Given
+        start(8, Duration.ofMillis(50));
+        recommendationBatcher.stop();
+
+        // When & Then
+        assertThrows(CancellationException.class, () -> recommendationBatcher.submit(activity("a-1")));
+        verifyNoInteractions(activityAIService);
+    }
+
+    private void start(int maxSize, Duration maxWait) {
+        recommendationBatcher = new RecommendationBatcher(activityAIService, recommendationBulkWriter, meterRegistry,
+                true, maxSize, maxWait);
+        recommendationBatcher.start();
+    }
+
+    private CompletableFuture<Optional<Recommendation>> submitAsync(Activity activity) {
+        //Listener threads block in submit, so each submit gets its own thread
+        return CompletableFuture.supplyAsync(() -> recommendationBatcher.submit(activity),
+                command -> Thread.ofVirtual().start(command));
+    }
+
+    //Keeps the order of a batch deterministic by waiting until the previous submit is in
+    private void awaitQueued(int activities) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (recommendationBatcher.unfinishedActivities() < activities) {
+            assertTrue(System.nanoTime() < deadline, "Activities were not submitted in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private Activity activity(String id) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setUserId("user-" + id);
+        activity.setActivityType("RUNNING");
+        return activity;
+    }
+
+    private Recommendation recommendation(String activityId) {
+        return Recommendation.builder()
+                .activityId(activityId)
+                .recommendation("Overall: Solid run")
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.Recommendation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationCacheTest {
+
+    private RecommendationCache recommendationCache;
+
+    @BeforeEach
+    void setUp() {
+        recommendationCache = new RecommendationCache(new SimpleMeterRegistry(), true, 100,
+                Duration.ofHours(1), 5, 50, Set.of("yoga"));
+    }
+
+    @Test
+    @DisplayName("Should produce the same key for activities differing only in noise")
+    void shouldProduceSameKey_WhenActivitiesAreEquivalent() {
+        // Given
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("avgHeartRate", 152);
+        metrics.put("distanceKm", 8.21);
+        Map<String, Object> reorderedMetrics = new LinkedHashMap<>();
+        reorderedMetrics.put("distancekm", 8.24);
+        reorderedMetrics.put("AvgHeartRate", 149);
+
+        // When
+        String key = recommendationCache.featureKey(activity("a-1", "RUNNING", 45, 520, metrics));
+        String equivalentKey = recommendationCache.featureKey(activity("a-2", "running", 44, 510, reorderedMetrics));
+
+        // Then
+        assertEquals(key, equivalentKey);
+    }
+
+    @Test
+    @DisplayName("Should produce different keys for different activities")
+    void shouldProduceDifferentKeys_WhenActivitiesDiffer() {
+        // When
+        String key = recommendationCache.featureKey(activity("a-1", "RUNNING", 45, 520, Map.of()));
+        String longerKey = recommendationCache.featureKey(activity("a-2", "RUNNING", 90, 520, Map.of()));
+        String cyclingKey = recommendationCache.featureKey(activity("a-3", "CYCLING", 45, 520, Map.of()));
+
+        // Then
+        assertNotEquals(key, longerKey);
+        assertNotEquals(key, cyclingKey);
+    }
+
+    @Test
+    @DisplayName("Should reuse a cached recommendation for the new activity")
+    void shouldReuseCachedRecommendation_ForEquivalentActivity() {
+        // Given
+        recommendationCache.put(activity("a-1", "RUNNING", 45, 520, Map.of()), recommendation(false));
+
+        // When
+        Optional<Recommendation> result = recommendationCache.get(activity("a-2", "RUNNING", 46, 500, Map.of()));
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals("a-2", result.get().getActivityId());
+        assertEquals("user-a-2", result.get().getUserId());
+        assertEquals("Overall: Solid run", result.get().getRecommendation());
+    }
+
+    @Test
+    @DisplayName("Should not cache fallback recommendations")
+    void shouldNotCache_WhenRecommendationIsFallback() {
+        // Given
+        recommendationCache.put(activity("a-1", "RUNNING", 45, 520, Map.of()), recommendation(true));
+
+        // When & Then
+        assertTrue(recommendationCache.get(activity("a-2", "RUNNING", 45, 520, Map.of())).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not cache excluded activity types")
+    void shouldNotCache_WhenActivityTypeExcluded() {
+        // Given
+        recommendationCache.put(activity("a-1", "YOGA", 60, 200, Map.of()), recommendation(false));
+
+        // When & Then
+        assertTrue(recommendationCache.get(activity("a-2", "YOGA", 60, 200, Map.of())).isEmpty());
+    }
+
+    private Activity activity(String id, String activityType, int duration, int calories, Map<String, Object> metrics) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setUserId("user-" + id);
+        activity.setActivityType(activityType);
+        activity.setDuration(duration);
+        activity.setCaloriesBurned(calories);
+        activity.setAdditionalMetrics(metrics);
+        return activity;
+    }
+
+    private Recommendation recommendation(boolean fallback) {
+        return Recommendation.builder()
+                .recommendation("Overall: Solid run")
+                .improvements(List.of("Pace: Negative split"))
+                .suggestions(List.of("Intervals: 6x400m"))
+                .safety(List.of("Stay hydrated"))
+                .fallback(fallback)
+                .build();
+    }
+}
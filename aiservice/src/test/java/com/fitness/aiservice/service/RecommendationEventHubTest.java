@@ -0,0 +1,129 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Recommendation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationEventHubTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RecommendationEventHub recommendationEventHub;
+
+    @BeforeEach
+    void setUp() {
+        recommendationEventHub = new RecommendationEventHub(meterRegistry, 4);
+    }
+
+    @Test
+    @DisplayName("Should push a recommendation to every stream of its user only")
+    void shouldFanOut_ToEveryStreamOfUser() {
+        // Given
+        List<Recommendation> firstStream = new CopyOnWriteArrayList<>();
+        List<Recommendation> secondStream = new CopyOnWriteArrayList<>();
+        List<Recommendation> otherUserStream = new CopyOnWriteArrayList<>();
+        recommendationEventHub.subscribe("user-1").subscribe(firstStream::add);
+        recommendationEventHub.subscribe("user-1").subscribe(secondStream::add);
+        recommendationEventHub.subscribe("user-2").subscribe(otherUserStream::add);
+
+        // When
+        recommendationEventHub.publish(recommendation("a-1", "user-1"));
+
+        // Then
+        assertEquals(List.of("a-1"), activityIds(firstStream));
+        assertEquals(List.of("a-1"), activityIds(secondStream));
+        assertTrue(otherUserStream.isEmpty());
+        assertEquals(2.0, meterRegistry.get("ai.stream.users").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should drop events for a slow stream without holding back the others")
+    void shouldDropEvents_WhenSubscriberIsSlow() {
+        // Given: a stream that requests nothing until the events have been published
+        List<Recommendation> slowStream = new CopyOnWriteArrayList<>();
+        List<Recommendation> fastStream = new CopyOnWriteArrayList<>();
+        SlowSubscriber slowSubscriber = new SlowSubscriber(slowStream);
+        recommendationEventHub.subscribe("user-1").subscribe(slowSubscriber);
+        recommendationEventHub.subscribe("user-1").subscribe(fastStream::add);
+
+        // When
+        for (int i = 1; i <= 6; i++) {
+            recommendationEventHub.publish(recommendation("a-" + i, "user-1"));
+        }
+        slowSubscriber.requestUnbounded();
+
+        // Then: the slow stream only gets what fit in its buffer
+        assertEquals(List.of("a-1", "a-2", "a-3", "a-4"), activityIds(slowStream));
+        assertEquals(6, fastStream.size());
+    }
+
+    @Test
+    @DisplayName("Should remove a stream once it is cancelled")
+    void shouldRemoveStream_WhenCancelled() {
+        // Given
+        Disposable first = recommendationEventHub.subscribe("user-1").subscribe();
+        Disposable second = recommendationEventHub.subscribe("user-1").subscribe();
+        assertEquals(2, recommendationEventHub.subscriberCount("user-1"));
+
+        // When
+        first.dispose();
+
+        // Then
+        assertEquals(1, recommendationEventHub.subscriberCount("user-1"));
+        second.dispose();
+        assertEquals(0, recommendationEventHub.subscriberCount("user-1"));
+        assertEquals(0.0, meterRegistry.get("ai.stream.users").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should not register a stream that is never subscribed")
+    void shouldNotRegister_WhenStreamNeverSubscribed() {
+        // When
+        Flux<Recommendation> stream = recommendationEventHub.subscribe("user-1");
+
+        // Then
+        assertNotNull(stream);
+        assertEquals(0, recommendationEventHub.subscriberCount("user-1"));
+    }
+
+    private static List<String> activityIds(List<Recommendation> recommendations) {
+        return recommendations.stream().map(Recommendation::getActivityId).toList();
+    }
+
+    private static Recommendation recommendation(String activityId, String userId) {
+        return Recommendation.builder()
+                .activityId(activityId)
+                .userId(userId)
+                .recommendation("Overall: Solid run")
+                .build();
+    }
+
+    private static final class SlowSubscriber extends BaseSubscriber<Recommendation> {
+
+        private final List<Recommendation> received;
+
+        private SlowSubscriber(List<Recommendation> received) {
+            this.received = received;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            //No demand until requestUnbounded
+        }
+
+        @Override
+        protected void hookOnNext(Recommendation recommendation) {
+            received.add(recommendation);
+        }
+    }
+}
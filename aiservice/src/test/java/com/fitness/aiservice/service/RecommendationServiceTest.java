@@ -0,0 +1,172 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.dto.CachedResponse;
+import com.fitness.aiservice.model.Recommendation;
+import com.fitness.aiservice.repository.RecommendationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceTest {
+
+    @Mock
+    private RecommendationRepository recommendationRepository;
+
+    private RecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        recommendationService = new RecommendationService(recommendationRepository, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(2));
+    }
+
+    @Test
+    @DisplayName("Should serve an activity recommendation from the cache after the first read")
+    void shouldCacheActivityRecommendation() {
+        // Given
+        when(recommendationRepository.findByActivityId("a-1")).thenReturn(Optional.of(recommendation("a-1", false)));
+
+        // When
+        CachedResponse<Recommendation> first = recommendationService.getActivityRecommendations("a-1");
+        CachedResponse<Recommendation> second = recommendationService.getActivityRecommendations("a-1");
+
+        // Then
+        assertSame(first, second);
+        verify(recommendationRepository, times(1)).findByActivityId("a-1");
+    }
+
+    @Test
+    @DisplayName("Should not cache a missing activity recommendation")
+    void shouldNotCacheMiss_WhenRecommendationNotSavedYet() {
+        // Given
+        when(recommendationRepository.findByActivityId("a-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(recommendation("a-1", false)));
+        assertThrows(RuntimeException.class, () -> recommendationService.getActivityRecommendations("a-1"));
+
+        // When
+        CachedResponse<Recommendation> response = recommendationService.getActivityRecommendations("a-1");
+
+        // Then
+        assertEquals("a-1", response.body().getActivityId());
+    }
+
+    @Test
+    @DisplayName("Should reload an evicted recommendation with a new ETag")
+    void shouldReload_WhenRecommendationEvicted() {
+        // Given
+        Recommendation replacement = recommendation("a-1", false);
+        when(recommendationRepository.findByActivityId("a-1"))
+                .thenReturn(Optional.of(recommendation("a-1", true)))
+                .thenReturn(Optional.of(replacement));
+        CachedResponse<Recommendation> fallback = recommendationService.getActivityRecommendations("a-1");
+
+        // When
+        recommendationService.evict(replacement);
+        CachedResponse<Recommendation> reloaded = recommendationService.getActivityRecommendations("a-1");
+
+        // Then
+        assertFalse(reloaded.body().isFallback());
+        assertNotEquals(fallback.eTag(), reloaded.eTag());
+    }
+
+    @Test
+    @DisplayName("Should not keep a read that raced with an evict")
+    void shouldDropConcurrentLoad_WhenEvictedDuringLoad() throws Exception {
+        // Given: the first read returns the fallback, but only after the replacement has been evicted
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        Recommendation replacement = recommendation("a-1", false);
+        when(recommendationRepository.findByActivityId("a-1"))
+                .thenAnswer(invocation -> {
+                    loadStarted.countDown();
+                    assertTrue(releaseLoad.await(5, TimeUnit.SECONDS));
+                    return Optional.of(recommendation("a-1", true));
+                })
+                .thenReturn(Optional.of(replacement));
+        CompletableFuture<CachedResponse<Recommendation>> staleRead =
+                CompletableFuture.supplyAsync(() -> recommendationService.getActivityRecommendations("a-1"));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // When
+        Thread evict = Thread.ofPlatform().start(() -> recommendationService.evict(replacement));
+        awaitBlocked(evict);
+        releaseLoad.countDown();
+        evict.join(5000);
+
+        // Then
+        assertTrue(staleRead.get(5, TimeUnit.SECONDS).body().isFallback());
+        assertFalse(recommendationService.getActivityRecommendations("a-1").body().isFallback());
+    }
+
+    @Test
+    @DisplayName("Should evict a user's recommendations when one of them is written")
+    void shouldEvictUserRecommendations_WhenRecommendationWritten() {
+        // Given
+        Recommendation saved = recommendation("a-2", false);
+        when(recommendationRepository.findByUserId("user-1"))
+                .thenReturn(List.of(recommendation("a-1", false)))
+                .thenReturn(List.of(recommendation("a-1", false), saved));
+        CachedResponse<List<Recommendation>> before = recommendationService.getUserRecommendations("user-1");
+        assertSame(before, recommendationService.getUserRecommendations("user-1"));
+
+        // When
+        recommendationService.evict(saved);
+        CachedResponse<List<Recommendation>> after = recommendationService.getUserRecommendations("user-1");
+
+        // Then
+        assertEquals(2, after.body().size());
+        assertNotEquals(before.eTag(), after.eTag());
+        verify(recommendationRepository, times(2)).findByUserId("user-1");
+    }
+
+    @Test
+    @DisplayName("Should give equal bodies the same strong ETag")
+    void shouldComputeSameETag_ForEqualBodies() {
+        // When
+        String eTag = CachedResponse.of(recommendation("a-1", false)).eTag();
+        String sameETag = CachedResponse.of(recommendation("a-1", false)).eTag();
+        String otherETag = CachedResponse.of(recommendation("a-1", true)).eTag();
+
+        // Then
+        assertEquals(eTag, sameETag);
+        assertNotEquals(eTag, otherETag);
+        assertTrue(eTag.matches("\"[0-9a-f]{64}\""));
+    }
+
+    //Waits until the thread is stuck on the cache entry being loaded
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.BLOCKED && thread.getState() != Thread.State.WAITING) {
+            assertTrue(System.nanoTime() < deadline, "Evict did not wait for the load");
+            Thread.sleep(5);
+        }
+    }
+
+    private Recommendation recommendation(String activityId, boolean fallback) {
+        return Recommendation.builder()
+                .id("rec-" + activityId)
+                .activityId(activityId)
+                .userId("user-1")
+                .activityType("RUNNING")
+                .recommendation(fallback ? "Overall: Analysis unavailable" : "Overall: Solid run")
+                .improvements(List.of("Pace: Negative split"))
+                .fallback(fallback)
+                .build();
+    }
+}
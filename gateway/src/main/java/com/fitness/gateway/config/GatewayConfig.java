@@ -1,24 +1,53 @@
 package com.fitness.gateway.config;
 
+import com.fitness.gateway.ratelimit.InMemoryRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class GatewayConfig {
 
+    public static final String USER_SERVICE_ROUTE = "user-service";
+    public static final String ACTIVITY_SERVICE_ROUTE = "activity-service";
+    public static final String AI_SERVICE_ROUTE = "ai-service";
+    public static final String AI_SERVICE_STREAM_ROUTE = "ai-service-stream";
+
+    //Every route is rate limited per user with the quota configured for its route id in RateLimitConfig
     @Bean
-    public RouteLocator routeLocator(RouteLocatorBuilder routeLocatorBuilder) {
+    public RouteLocator routeLocator(RouteLocatorBuilder routeLocatorBuilder,
+                                     InMemoryRateLimiter inMemoryRateLimiter,
+                                     KeyResolver userKeyResolver) {
         return routeLocatorBuilder.routes()
-                .route("user-service",r -> r
+                .route(USER_SERVICE_ROUTE,r -> r
                         .path("/api/users/**")
+                        .filters(f -> f.requestRateLimiter(c -> c
+                                .setRateLimiter(inMemoryRateLimiter)
+                                .setKeyResolver(userKeyResolver)))
                         .uri("lb://USER-SERVICE"))
-                .route("activity-service",r -> r
+                .route(ACTIVITY_SERVICE_ROUTE,r -> r
                         .path("/api/activities/**")
+                        .filters(f -> f.requestRateLimiter(c -> c
+                                .setRateLimiter(inMemoryRateLimiter)
+                                .setKeyResolver(userKeyResolver)))
                         .uri("lb://ACTIVITY-SERVICE"))
-                .route("ai-service",r -> r
+                //Declared before ai-service so it matches first. Server sent events are long lived,
+                //so the response timeout is disabled and only opening a stream counts against the quota.
+                .route(AI_SERVICE_STREAM_ROUTE,r -> r
+                        .path("/api/recommendations/stream")
+                        .filters(f -> f.requestRateLimiter(c -> c
+                                .setRateLimiter(inMemoryRateLimiter)
+                                .setKeyResolver(userKeyResolver)))
+                        .metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, -1)
+                        .uri("lb://AI-SERVICE"))
+                .route(AI_SERVICE_ROUTE,r -> r
                         .path("/api/recommendations/**")
+                        .filters(f -> f.requestRateLimiter(c -> c
+                                .setRateLimiter(inMemoryRateLimiter)
+                                .setKeyResolver(userKeyResolver)))
                         .uri("lb://AI-SERVICE"))
                 .build();
     }
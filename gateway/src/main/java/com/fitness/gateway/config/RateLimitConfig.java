@@ -0,0 +1,69 @@
+package com.fitness.gateway.config;
+
+import com.fitness.gateway.ratelimit.InMemoryRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.security.Principal;
+import java.time.Duration;
+
+@Configuration
+public class RateLimitConfig {
+
+    //Quota applied to routes without one of their own
+    @Value("${gateway.rate-limit.default.replenish-rate:10}")
+    private double defaultReplenishRate;
+    @Value("${gateway.rate-limit.default.burst-capacity:20}")
+    private int defaultBurstCapacity;
+
+    //Per route quotas, activity ingestion is the tightest since every activity ends up as an LLM call
+    @Value("${gateway.rate-limit.user-service.replenish-rate:5}")
+    private double userServiceReplenishRate;
+    @Value("${gateway.rate-limit.user-service.burst-capacity:10}")
+    private int userServiceBurstCapacity;
+    @Value("${gateway.rate-limit.activity-service.replenish-rate:2}")
+    private double activityServiceReplenishRate;
+    @Value("${gateway.rate-limit.activity-service.burst-capacity:10}")
+    private int activityServiceBurstCapacity;
+    @Value("${gateway.rate-limit.ai-service.replenish-rate:10}")
+    private double aiServiceReplenishRate;
+    @Value("${gateway.rate-limit.ai-service.burst-capacity:20}")
+    private int aiServiceBurstCapacity;
+    //A stream is held open for minutes, so only (re)connects are counted
+    @Value("${gateway.rate-limit.ai-service-stream.replenish-rate:0.2}")
+    private double aiServiceStreamReplenishRate;
+    @Value("${gateway.rate-limit.ai-service-stream.burst-capacity:5}")
+    private int aiServiceStreamBurstCapacity;
+
+    @Value("${gateway.rate-limit.max-buckets:100000}")
+    private long maxBuckets;
+    @Value("${gateway.rate-limit.idle-timeout:10m}")
+    private Duration idleTimeout;
+
+    @Bean
+    public InMemoryRateLimiter inMemoryRateLimiter(MeterRegistry meterRegistry) {
+        InMemoryRateLimiter rateLimiter = new InMemoryRateLimiter(meterRegistry,
+                quota(defaultReplenishRate, defaultBurstCapacity), maxBuckets, idleTimeout);
+        rateLimiter.getConfig().put(GatewayConfig.USER_SERVICE_ROUTE, quota(userServiceReplenishRate, userServiceBurstCapacity));
+        rateLimiter.getConfig().put(GatewayConfig.ACTIVITY_SERVICE_ROUTE, quota(activityServiceReplenishRate, activityServiceBurstCapacity));
+        rateLimiter.getConfig().put(GatewayConfig.AI_SERVICE_ROUTE, quota(aiServiceReplenishRate, aiServiceBurstCapacity));
+        rateLimiter.getConfig().put(GatewayConfig.AI_SERVICE_STREAM_ROUTE, quota(aiServiceStreamReplenishRate, aiServiceStreamBurstCapacity));
+        return rateLimiter;
+    }
+
+    //Limits are per user, keyed on the JWT subject. A client supplied X-USER-ID is never trusted, the gateway overwrites it.
+    @Bean
+    public KeyResolver userKeyResolver() {
+        return exchange -> exchange.getPrincipal()
+                .map(Principal::getName);
+    }
+
+    private static InMemoryRateLimiter.Config quota(double replenishRate, int burstCapacity) {
+        return new InMemoryRateLimiter.Config()
+                .withReplenishRate(replenishRate)
+                .withBurstCapacity(burstCapacity);
+    }
+}
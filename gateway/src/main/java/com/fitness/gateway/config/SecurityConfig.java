@@ -1,10 +1,14 @@
 package com.fitness.gateway.config;
 
+import com.fitness.gateway.security.CachingReactiveJwtDecoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
@@ -27,6 +31,13 @@ public class SecurityConfig {
                 .build();
     }
 
+    //Replaces the auto-configured decoder, tokens already seen by this gateway are not decoded again
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                                         @Value("${gateway.jwt.cache.max-size:10000}") long maxSize) {
+        return new CachingReactiveJwtDecoder(NimbusReactiveJwtDecoder.withJwkSetUri(jwkSetUri).build(), maxSize);
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
 
@@ -2,28 +2,30 @@ package com.fitness.gateway.filter;
 
 import com.fitness.gateway.model.RegisterRequest;
 import com.fitness.gateway.service.UserService;
-import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
+import java.util.Optional;
+
 /**
  * A WebFilter that synchronizes users from Keycloak into the local database.
  *
  * <p>This filter intercepts every incoming request to the API gateway and performs
  * the following steps:</p>
  * <ol>
- *   <li>Extracts the JWT token from the {@code Authorization} header</li>
- *   <li>Extracts or derives the user ID from the {@code X-USER-ID} header or the JWT token</li>
- *   <li>Checks if the user exists in the local database</li>
+ *   <li>Takes the user's claims from the JWT already decoded by the resource server</li>
+ *   <li>Takes the user ID from the JWT subject, never from a client supplied {@code X-USER-ID} header</li>
+ *   <li>Checks if the user exists in the local database, unless the gateway already knows them</li>
  *   <li>Registers the user if they do not already exist</li>
- *   <li>Mutates the request to include the {@code X-USER-ID} header for downstream services</li>
+ *   <li>Mutates the request to overwrite the {@code X-USER-ID} header for downstream services</li>
  * </ol>
  *
  * <p>This ensures that any authenticated user is automatically synced into the local
@@ -31,7 +33,7 @@ import reactor.core.publisher.Mono;
  *
  * <p><b>Example flow:</b></p>
  * <pre>
- *   Request → Extract Token → Validate User → Register (if new) → Add X-USER-ID Header → Route to Service
+ *   Request → Read Claims → Validate User → Register (if new) → Add X-USER-ID Header → Route to Service
  * </pre>
  *
  * @see UserService
@@ -44,12 +46,20 @@ public class KeyCloakUserSyncFilter implements WebFilter {
 
     private final UserService userService;
 
+    /**
+     * Exchange attribute holding the {@link RegisterRequest} built from the authenticated JWT,
+     * so later filters can use the user's claims without decoding the token again.
+     */
+    public static final String USER_DETAILS_ATTRIBUTE = KeyCloakUserSyncFilter.class.getName() + ".userDetails";
+
+    private static final String USER_ID_HEADER = "X-USER-ID";
+
     /**
      * Intercepts incoming requests, syncs the user with the local database if necessary,
      * and forwards the request with the {@code X-USER-ID} header attached.
      *
-     * <p>If the {@code Authorization} token or user ID is missing, the filter skips
-     * the sync logic and passes the request through unchanged.</p>
+     * <p>If the request is not authenticated with a JWT or no user ID can be determined,
+     * the filter skips the sync logic and passes the request on without any {@code X-USER-ID} header.</p>
      *
      * @param serverWebExchange the current server web exchange, containing the request and response
      * @param webFilterChain    the downstream filter chain to continue processing
@@ -58,89 +68,80 @@ public class KeyCloakUserSyncFilter implements WebFilter {
     @Override
     public Mono<Void> filter(ServerWebExchange serverWebExchange, WebFilterChain webFilterChain) {
 
-        // Extract the JWT token from the Authorization header
-        String token = serverWebExchange.getRequest().getHeaders().getFirst("Authorization");
+        // The token was already decoded and validated by the resource server filter, reuse its result
+        return serverWebExchange.getPrincipal()
+                .ofType(JwtAuthenticationToken.class)
+                .map(authentication -> Optional.of(getUserDetails(serverWebExchange, authentication.getToken())))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(userDetails -> userDetails
+                        .map(registerRequest -> syncUser(serverWebExchange, webFilterChain, registerRequest))
+                        // No JWT on this request, skip sync logic and continue without a client supplied user ID
+                        .orElseGet(() -> webFilterChain.filter(withUserId(serverWebExchange, null))));
+    }
 
-        // Extract the X-USER-ID header if it was already set by a previous request
-        String userId = serverWebExchange.getRequest().getHeaders().getFirst("X-USER-ID");
+    private Mono<Void> syncUser(ServerWebExchange serverWebExchange, WebFilterChain webFilterChain,
+                                RegisterRequest registerRequest) {
 
-        // Decode the JWT token and extract user details (Keycloak ID, name, email, etc.)
-        RegisterRequest registerRequest = getUserDetails(token);
+        // The user ID always comes from the token, a client cannot act as another user by sending X-USER-ID
+        String userId = registerRequest.getKeyCloakId();
 
-        // If X-USER-ID header wasn't provided, fall back to the Keycloak ID from the token
+        // Without a user ID there is nothing to sync
         if (userId == null) {
-            userId = registerRequest.getKeyCloakId();
+            return webFilterChain.filter(withUserId(serverWebExchange, null));
         }
 
-        // Only proceed with sync logic if both userId and token are present
-        if (userId != null && token != null) {
-            // Copy userId to a final variable so it can be used inside the lambda
-            // Java lambdas require variables to be effectively final
-            String finalUserId = userId;
-
-            // Check if the user already exists in our database
-            return userService.validateUser(userId)
-                    .flatMap(exist -> {
-                        if (!exist) {
-                            // User does not exist - register them if we have their details from the token
-                            if (registerRequest != null) {
-                                return userService.registerUser(registerRequest)
-                                        .then(Mono.empty()); // Registration complete, emit nothing and move on
-                            } else {
-                                // No user details available to register, skip
-                                return Mono.empty();
-                            }
-                        } else {
-                            // User already exists in the database, no action needed
-                            log.info("User already exists. Skipping sync");
-                            return Mono.empty();
-                        }
-                    }).then(Mono.defer(() -> {
-                        // After sync logic completes, mutate the request to add X-USER-ID header
-                        // This allows downstream microservices to know who the user is
-                        // without having to decode the JWT token themselves
-                        ServerHttpRequest mutatedRequest = serverWebExchange.getRequest().mutate()
-                                .header("X-USER-ID", finalUserId)
-                                .build();
-
-                        // Pass the mutated request down the filter chain to the next filter or route
-                        return webFilterChain.filter(serverWebExchange.mutate().request(mutatedRequest).build());
-                    }));
-        }
+        // Check if the user already exists in our database and register them if not,
+        // users already known to the gateway skip the round trip to user-service
+        return userService.syncUser(userId, registerRequest)
+                // After sync logic completes, overwrite the X-USER-ID header so downstream microservices
+                // know who the user is without having to decode the JWT token themselves
+                .then(Mono.defer(() -> webFilterChain.filter(withUserId(serverWebExchange, userId))));
+    }
 
-        // If userId or token is missing, skip sync logic and continue the filter chain as normal
-        return webFilterChain.filter(serverWebExchange);
+    /**
+     * Replaces any {@code X-USER-ID} header sent by the client.
+     * @param userId the ID taken from the token, or {@code null} to only remove the header
+     */
+    private static ServerWebExchange withUserId(ServerWebExchange serverWebExchange, String userId) {
+
+        ServerHttpRequest mutatedRequest = serverWebExchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(USER_ID_HEADER);
+                    if (userId != null) {
+                        headers.set(USER_ID_HEADER, userId);
+                    }
+                })
+                .build();
+        return serverWebExchange.mutate().request(mutatedRequest).build();
     }
 
     /**
-     * Decodes the JWT token and extracts user details to populate a {@link RegisterRequest}.
+     * Extracts the user details of the authenticated JWT into a {@link RegisterRequest}.
      *
-     * <p>The token is expected to be a Bearer token from Keycloak containing claims such as
-     * the user's Keycloak ID, name, and email.</p>
+     * <p>The claims come from the {@link Jwt} the resource server already decoded, so the token is
+     * not parsed again here. The result is stored under {@link #USER_DETAILS_ATTRIBUTE} for the
+     * rest of the exchange.</p>
      *
-     * @param token the raw JWT token string from the {@code Authorization} header
-     * @return a {@link RegisterRequest} populated with the user's details extracted from the token,
-     *         or {@code null} if the token is invalid or cannot be decoded
+     * @param serverWebExchange the current exchange
+     * @param jwt               the decoded Keycloak token containing the user's ID, name and email
+     * @return a {@link RegisterRequest} populated with the user's details from the token
      */
-    private RegisterRequest getUserDetails(String token) {
-
-        try{
-            String tokenWithoutBearer = token.split("Bearer ")[1];
-            SignedJWT signedJWT = SignedJWT.parse(tokenWithoutBearer);
-            JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
-
-            RegisterRequest registerRequest = new RegisterRequest();
-            registerRequest.setKeyCloakId(claimsSet.getSubject());
-            registerRequest.setEmail(claimsSet.getStringClaim("email"));
-            registerRequest.setFirstName(claimsSet.getStringClaim("given_name"));
-            registerRequest.setLastName(claimsSet.getStringClaim("family_name"));
-            registerRequest.setPassword("dummyPassword");
-            return registerRequest;
-
-        }catch (Exception e){
-            e.printStackTrace();
-            return null;
-        }
+    private RegisterRequest getUserDetails(ServerWebExchange serverWebExchange, Jwt jwt) {
+
+        RegisterRequest userDetails = serverWebExchange.getAttribute(USER_DETAILS_ATTRIBUTE);
+        return userDetails != null ? userDetails : storeUserDetails(serverWebExchange, jwt);
+    }
+
+    private RegisterRequest storeUserDetails(ServerWebExchange serverWebExchange, Jwt jwt) {
+
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setKeyCloakId(jwt.getSubject());
+        registerRequest.setEmail(jwt.getClaimAsString("email"));
+        registerRequest.setFirstName(jwt.getClaimAsString("given_name"));
+        registerRequest.setLastName(jwt.getClaimAsString("family_name"));
+        registerRequest.setPassword("dummyPassword");
+        serverWebExchange.getAttributes().put(USER_DETAILS_ATTRIBUTE, registerRequest);
+        return registerRequest;
     }
 
 }
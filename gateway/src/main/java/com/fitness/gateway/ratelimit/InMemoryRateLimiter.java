@@ -0,0 +1,144 @@
+package com.fitness.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token bucket {@link RateLimiter} kept in the gateway's memory, so no Redis is needed.
+ *
+ * <p>Every route and key (the user) gets its own bucket holding up to {@code burstCapacity} tokens,
+ * refilled at {@code replenishRate} tokens per second. A request takes one token and is rejected
+ * when the bucket is empty. Rejected requests get a 429 from the
+ * {@code RequestRateLimiter} filter along with a {@code Retry-After} header telling the client
+ * when the next token will be available. Buckets of users that stop sending requests are evicted.</p>
+ *
+ * <p>Limits apply per gateway instance.</p>
+ */
+public class InMemoryRateLimiter implements RateLimiter<InMemoryRateLimiter.Config> {
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private final Map<String, Config> routeConfigs = new ConcurrentHashMap<>();
+    private final Cache<String, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+    private final Config defaultConfig;
+
+    public InMemoryRateLimiter(MeterRegistry meterRegistry, Config defaultConfig, long maxBuckets, Duration idleTimeout) {
+        this.meterRegistry = meterRegistry;
+        this.defaultConfig = defaultConfig;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        return isAllowed(routeId, id, System.nanoTime());
+    }
+
+    Mono<Response> isAllowed(String routeId, String id, long now) {
+
+        Config config = routeConfigs.getOrDefault(routeId, defaultConfig);
+        TokenBucket bucket = buckets.get(routeId + ":" + id, key -> new TokenBucket(config, now));
+        long retryAfterSeconds = bucket.tryConsume(now);
+        boolean allowed = retryAfterSeconds == 0;
+
+        meterRegistry.counter("gateway.ratelimit.requests",
+                "route", routeId,
+                "outcome", allowed ? "admitted" : "rejected").increment();
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put(REMAINING_HEADER, String.valueOf(bucket.remaining()));
+        headers.put(REPLENISH_RATE_HEADER, String.valueOf(config.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, String.valueOf(config.getBurstCapacity()));
+        if (!allowed) {
+            headers.put(RETRY_AFTER_HEADER, String.valueOf(retryAfterSeconds));
+        }
+        return Mono.just(new Response(allowed, headers));
+    }
+
+    @Override
+    public Map<String, Config> getConfig() {
+        return routeConfigs;
+    }
+
+    @Override
+    public Class<Config> getConfigClass() {
+        return Config.class;
+    }
+
+    @Override
+    public Config newConfig() {
+        return new Config();
+    }
+
+    /**
+     * Quota of a route.
+     */
+    @Data
+    public static class Config {
+        //Tokens added per second, the sustained requests per second allowed per user
+        private double replenishRate = 10;
+        //Bucket size, the burst of requests allowed per user
+        private int burstCapacity = 20;
+
+        public Config withReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public Config withBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+    }
+
+    static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerSecond;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(Config config, long now) {
+            this.capacity = config.getBurstCapacity();
+            this.tokensPerSecond = config.getReplenishRate();
+            this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        /**
+         * Takes a token if one is available.
+         * @return 0 if a token was taken, otherwise the seconds until one will be available
+         */
+        synchronized long tryConsume(long now) {
+
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerSecond));
+        }
+
+        synchronized long remaining() {
+            return (long) tokens;
+        }
+    }
+}
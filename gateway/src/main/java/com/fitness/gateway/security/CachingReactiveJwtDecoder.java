@@ -0,0 +1,88 @@
+package com.fitness.gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * A {@link ReactiveJwtDecoder} that remembers the tokens it has already decoded and validated.
+ *
+ * <p>A session sends the same bearer token on every request, so after the first request its
+ * signature check, parsing and claim validation are skipped. Entries are keyed by the SHA-256 of
+ * the token, so raw tokens are never held in memory, and expire at the token's {@code exp} claim.
+ * Tokens that fail validation are not cached.</p>
+ */
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+
+    private final ReactiveJwtDecoder delegate;
+    private final Cache<String, Jwt> decodedTokens;
+
+    public CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, long maxSize) {
+        this(delegate, maxSize, Clock.systemUTC(), Ticker.systemTicker());
+    }
+
+    CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, long maxSize, Clock clock, Ticker ticker) {
+        this.delegate = delegate;
+        this.decodedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpireAtTokenExpiry(clock))
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) {
+
+        String tokenHash = sha256(token);
+        Jwt cachedJwt = decodedTokens.getIfPresent(tokenHash);
+        if (cachedJwt != null) {
+            return Mono.just(cachedJwt);
+        }
+        return delegate.decode(token)
+                .doOnNext(jwt -> {
+                    //Tokens without an expiry are validated on every request
+                    if (jwt.getExpiresAt() != null) {
+                        decodedTokens.put(tokenHash, jwt);
+                    }
+                });
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record ExpireAtTokenExpiry(Clock clock) implements Expiry<String, Jwt> {
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(clock), jwt.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -2,20 +2,78 @@ package com.fitness.gateway.service;
 
 import com.fitness.gateway.model.RegisterRequest;
 import com.fitness.gateway.model.UserResponse;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class UserService {
 
     private final WebClient userServiceWebClient;
+    //Users known to exist in user-service, so their requests skip the validate call
+    private final Cache<String, Boolean> knownUsers;
+    //Syncs currently running, by user ID, removed as soon as they complete
+    private final Map<String, Mono<Void>> inFlightSyncs = new ConcurrentHashMap<>();
+
+    public UserService(WebClient userServiceWebClient,
+                       @Value("${gateway.known-users.max-size:100000}") long maxSize,
+                       @Value("${gateway.known-users.ttl:1h}") Duration ttl) {
+        this.userServiceWebClient = userServiceWebClient;
+        this.knownUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Makes sure the user exists in user-service, registering them on their first request.
+     *
+     * <p>Users seen within {@code gateway.known-users.ttl} are known to exist and return immediately.
+     * Otherwise the user is validated and, if missing, registered with the details from their token.
+     * Requests for a user whose sync is already running wait for that sync instead of starting another,
+     * so a new user's burst of first requests registers them only once.</p>
+     *
+     * @param userId          the user ID to check
+     * @param registerRequest the details to register the user with if they do not exist
+     * @return a {@link Mono} that completes once the user is known to exist
+     */
+    public Mono<Void> syncUser(String userId, RegisterRequest registerRequest) {
+
+        if (knownUsers.getIfPresent(userId) != null) {
+            return Mono.empty();
+        }
+
+        // Concurrent first requests of a new user share one validate and register call
+        return inFlightSyncs.computeIfAbsent(userId, id -> validateAndRegister(id, registerRequest)
+                .doFinally(signal -> inFlightSyncs.remove(id))
+                .cache());
+    }
+
+    private Mono<Void> validateAndRegister(String userId, RegisterRequest registerRequest) {
+
+        return validateUser(userId)
+                .flatMap(exist -> {
+                    if (!exist) {
+                        // User does not exist - register them with their details from the token
+                        return registerUser(registerRequest).then();
+                    }
+                    // User already exists in the database, no action needed
+                    log.info("User already exists. Skipping sync");
+                    return Mono.<Void>empty();
+                })
+                .doOnSuccess(ignored -> knownUsers.put(userId, Boolean.TRUE));
+    }
 
     public Mono<Boolean> validateUser(String userId) {
 
@@ -0,0 +1,105 @@
+package com.fitness.gateway.filter;
+
+import com.fitness.gateway.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeyCloakUserSyncFilterTest {
+
+    private static final String USER_ID = "keycloak-user-1";
+
+    @Mock
+    private UserService userService;
+
+    //Exchange the filter handed on to the rest of the chain
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+    private KeyCloakUserSyncFilter keyCloakUserSyncFilter;
+
+    @BeforeEach
+    void setUp() {
+        keyCloakUserSyncFilter = new KeyCloakUserSyncFilter(userService);
+    }
+
+    @Test
+    @DisplayName("Should overwrite a client supplied X-USER-ID with the JWT subject")
+    void shouldOverwriteUserIdHeader_WhenClientSendsAnotherUser() {
+        // Given
+        when(userService.syncUser(eq(USER_ID), any())).thenReturn(Mono.empty());
+        ServerWebExchange exchange = authenticated(MockServerHttpRequest.get("/api/recommendations/stream")
+                .header("X-USER-ID", "someone-else"));
+
+        // When
+        keyCloakUserSyncFilter.filter(exchange, this::forward).block();
+
+        // Then
+        assertEquals(List.of(USER_ID), forwarded.get().getRequest().getHeaders().get("X-USER-ID"));
+        verify(userService).syncUser(eq(USER_ID), any());
+    }
+
+    @Test
+    @DisplayName("Should add the JWT subject as X-USER-ID when the client sent none")
+    void shouldAddUserIdHeader_WhenClientSendsNone() {
+        // Given
+        when(userService.syncUser(eq(USER_ID), any())).thenReturn(Mono.empty());
+        ServerWebExchange exchange = authenticated(MockServerHttpRequest.get("/api/activities"));
+
+        // When
+        keyCloakUserSyncFilter.filter(exchange, this::forward).block();
+
+        // Then
+        assertEquals(USER_ID, forwarded.get().getRequest().getHeaders().getFirst("X-USER-ID"));
+    }
+
+    @Test
+    @DisplayName("Should drop a client supplied X-USER-ID on a request without a JWT")
+    void shouldRemoveUserIdHeader_WhenRequestHasNoJwt() {
+        // Given
+        ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/activities")
+                .header("X-USER-ID", "someone-else"));
+
+        // When
+        keyCloakUserSyncFilter.filter(exchange, this::forward).block();
+
+        // Then
+        assertNull(forwarded.get().getRequest().getHeaders().getFirst("X-USER-ID"));
+        verifyNoInteractions(userService);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange) {
+        forwarded.set(exchange);
+        return Mono.empty();
+    }
+
+    private static ServerWebExchange authenticated(MockServerHttpRequest.BaseBuilder<?> request) {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject(USER_ID)
+                .claim("email", "jane@example.com")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .build();
+        return MockServerWebExchange.from(request).mutate()
+                .principal(Mono.just(new JwtAuthenticationToken(jwt)))
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.fitness.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRateLimiterTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+    private static final long START = 1_000 * SECOND;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InMemoryRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new InMemoryRateLimiter(meterRegistry, quota(10, 20), 100, Duration.ofMinutes(10));
+        rateLimiter.getConfig().put("activity-service", quota(1, 2));
+        rateLimiter.getConfig().put("ai-service-stream", quota(0.2, 1));
+    }
+
+    @Test
+    @DisplayName("Should admit a full burst and reject the request after it")
+    void shouldRejectRequest_WhenBurstIsUsedUp() {
+        // Given
+        InMemoryRateLimiter.TokenBucket bucket = new InMemoryRateLimiter.TokenBucket(quota(1, 2), START);
+
+        // When & Then
+        assertEquals(0, bucket.tryConsume(START));
+        assertEquals(0, bucket.tryConsume(START));
+        assertEquals(1, bucket.tryConsume(START));
+        assertEquals(0, bucket.remaining());
+    }
+
+    @Test
+    @DisplayName("Should refill tokens at the replenish rate")
+    void shouldRefillTokens_AtReplenishRate() {
+        // Given
+        InMemoryRateLimiter.TokenBucket bucket = new InMemoryRateLimiter.TokenBucket(quota(2, 4), START);
+        for (int i = 0; i < 4; i++) {
+            bucket.tryConsume(START);
+        }
+
+        // When & Then: two tokens per second
+        assertEquals(1, bucket.tryConsume(START + SECOND / 4));
+        assertEquals(0, bucket.tryConsume(START + 6 * SECOND / 10));
+        assertEquals(1, bucket.tryConsume(START + 6 * SECOND / 10));
+        assertEquals(0, bucket.tryConsume(START + 12 * SECOND / 10));
+        assertEquals(0, bucket.tryConsume(START + 32 * SECOND / 10));
+        assertEquals(3, bucket.remaining());
+    }
+
+    @Test
+    @DisplayName("Should not refill beyond the burst capacity")
+    void shouldCapTokens_AtBurstCapacity() {
+        // Given
+        InMemoryRateLimiter.TokenBucket bucket = new InMemoryRateLimiter.TokenBucket(quota(1, 2), START);
+        bucket.tryConsume(START);
+
+        // When
+        bucket.tryConsume(START + 3600 * SECOND);
+
+        // Then
+        assertEquals(1, bucket.remaining());
+    }
+
+    @Test
+    @DisplayName("Should tell how long until the next token is available")
+    void shouldComputeRetryAfter_FromReplenishRate() {
+        // Given: one token every 5 seconds
+        InMemoryRateLimiter.TokenBucket bucket = new InMemoryRateLimiter.TokenBucket(quota(0.2, 1), START);
+        bucket.tryConsume(START);
+
+        // When & Then: rounded up to whole seconds
+        assertEquals(5, bucket.tryConsume(START));
+        assertEquals(3, bucket.tryConsume(START + 5 * SECOND / 2));
+        assertEquals(1, bucket.tryConsume(START + 9 * SECOND / 2));
+        assertEquals(0, bucket.tryConsume(START + 51 * SECOND / 10));
+    }
+
+    @Test
+    @DisplayName("Should apply the quota of the route and the default to routes without one")
+    void shouldApplyRouteQuota_WhenRouteIsConfigured() {
+        // When
+        RateLimiter.Response activityResponse = rateLimiter.isAllowed("activity-service", "user-1", START).block();
+        RateLimiter.Response otherResponse = rateLimiter.isAllowed("other-route", "user-1", START).block();
+
+        // Then
+        assertEquals("1.0", activityResponse.getHeaders().get(InMemoryRateLimiter.REPLENISH_RATE_HEADER));
+        assertEquals("2", activityResponse.getHeaders().get(InMemoryRateLimiter.BURST_CAPACITY_HEADER));
+        assertEquals("1", activityResponse.getHeaders().get(InMemoryRateLimiter.REMAINING_HEADER));
+        assertEquals("10.0", otherResponse.getHeaders().get(InMemoryRateLimiter.REPLENISH_RATE_HEADER));
+        assertEquals("20", otherResponse.getHeaders().get(InMemoryRateLimiter.BURST_CAPACITY_HEADER));
+        assertEquals("19", otherResponse.getHeaders().get(InMemoryRateLimiter.REMAINING_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should reject with a Retry-After header and count the outcome")
+    void shouldAddRetryAfter_WhenRequestIsRejected() {
+        // Given
+        rateLimiter.isAllowed("ai-service-stream", "user-1", START).block();
+
+        // When
+        RateLimiter.Response response = rateLimiter.isAllowed("ai-service-stream", "user-1", START + SECOND / 2).block();
+
+        // Then
+        assertFalse(response.isAllowed());
+        assertEquals("5", response.getHeaders().get(InMemoryRateLimiter.RETRY_AFTER_HEADER));
+        assertEquals(1.0, meterRegistry.get("gateway.ratelimit.requests")
+                .tags("route", "ai-service-stream", "outcome", "admitted").counter().count());
+        assertEquals(1.0, meterRegistry.get("gateway.ratelimit.requests")
+                .tags("route", "ai-service-stream", "outcome", "rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep separate buckets per user and per route")
+    void shouldKeepSeparateBuckets_PerUserAndRoute() {
+        // Given
+        rateLimiter.isAllowed("ai-service-stream", "user-1", START).block();
+
+        // When & Then
+        assertTrue(rateLimiter.isAllowed("ai-service-stream", "user-2", START).block().isAllowed());
+        assertTrue(rateLimiter.isAllowed("activity-service", "user-1", START).block().isAllowed());
+        assertFalse(rateLimiter.isAllowed("ai-service-stream", "user-1", START).block().isAllowed());
+    }
+
+    private static InMemoryRateLimiter.Config quota(double replenishRate, int burstCapacity) {
+        return new InMemoryRateLimiter.Config()
+                .withReplenishRate(replenishRate)
+                .withBurstCapacity(burstCapacity);
+    }
+}
@@ -0,0 +1,118 @@
+package com.fitness.gateway.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingReactiveJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private ReactiveJwtDecoder delegate;
+
+    //Caffeine's clock, advanced by the tests
+    private final AtomicLong ticker = new AtomicLong();
+    private CachingReactiveJwtDecoder cachingDecoder;
+
+    @BeforeEach
+    void setUp() {
+        cachingDecoder = new CachingReactiveJwtDecoder(delegate, 100, Clock.fixed(NOW, ZoneOffset.UTC), ticker::get);
+    }
+
+    @Test
+    @DisplayName("Should decode a token once and serve it from the cache afterwards")
+    void shouldDecodeOnce_WhenTokenIsValid() {
+        // Given
+        Jwt jwt = jwt(NOW.plus(Duration.ofMinutes(5)));
+        when(delegate.decode(TOKEN)).thenReturn(Mono.just(jwt));
+
+        // When
+        Jwt first = cachingDecoder.decode(TOKEN).block();
+        Jwt second = cachingDecoder.decode(TOKEN).block();
+
+        // Then
+        assertSame(jwt, first);
+        assertSame(jwt, second);
+        verify(delegate, times(1)).decode(TOKEN);
+    }
+
+    @Test
+    @DisplayName("Should only cache a token after it decoded successfully")
+    void shouldNotCache_WhenDecodingFails() {
+        // Given
+        Jwt jwt = jwt(NOW.plus(Duration.ofMinutes(5)));
+        when(delegate.decode(TOKEN))
+                .thenReturn(Mono.error(new BadJwtException("Signature verification failed")))
+                .thenReturn(Mono.just(jwt));
+
+        // When
+        assertThrows(BadJwtException.class, () -> cachingDecoder.decode(TOKEN).block());
+        Jwt decoded = cachingDecoder.decode(TOKEN).block();
+
+        // Then
+        assertSame(jwt, decoded);
+        verify(delegate, times(2)).decode(TOKEN);
+    }
+
+    @Test
+    @DisplayName("Should decode a token again once it has expired")
+    void shouldDecodeAgain_WhenTokenExpired() {
+        // Given
+        Jwt jwt = jwt(NOW.plus(Duration.ofMinutes(5)));
+        when(delegate.decode(TOKEN)).thenReturn(Mono.just(jwt));
+        cachingDecoder.decode(TOKEN).block();
+
+        // When
+        ticker.addAndGet(Duration.ofMinutes(5).minusSeconds(1).toNanos());
+        cachingDecoder.decode(TOKEN).block();
+        ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+        cachingDecoder.decode(TOKEN).block();
+
+        // Then: cached up to exp, decoded again at exp
+        verify(delegate, times(2)).decode(TOKEN);
+    }
+
+    @Test
+    @DisplayName("Should decode a token without an expiry on every request")
+    void shouldNotCache_WhenTokenHasNoExpiry() {
+        // Given
+        when(delegate.decode(TOKEN)).thenReturn(Mono.just(jwt(null)));
+
+        // When
+        cachingDecoder.decode(TOKEN).block();
+        cachingDecoder.decode(TOKEN).block();
+
+        // Then
+        verify(delegate, times(2)).decode(TOKEN);
+    }
+
+    private static Jwt jwt(Instant expiresAt) {
+        Jwt.Builder jwt = Jwt.withTokenValue(TOKEN)
+                .header("alg", "RS256")
+                .subject("user-1")
+                .issuedAt(NOW.minusSeconds(60));
+        if (expiresAt != null) {
+            jwt.expiresAt(expiresAt);
+        }
+        return jwt.build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.fitness.gateway.service;
+
+import com.fitness.gateway.model.RegisterRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServiceTest {
+
+    private static final String USER_ID = "keycloak-user-1";
+
+    //Requests received by the stubbed user-service, as "METHOD path"
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    //Response the stubbed user-service gives to the validate call
+    private final AtomicReference<Mono<ClientResponse>> validateResponse = new AtomicReference<>();
+    private volatile boolean registerFails;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://user-service")
+                .exchangeFunction(this::exchange)
+                .build();
+        userService = new UserService(webClient, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("Should register a new user once for concurrent first requests")
+    void shouldShareOneSync_WhenRequestsAreConcurrent() {
+        // Given: validate does not answer until released
+        Sinks.Empty<Void> release = Sinks.empty();
+        validateResponse.set(json(HttpStatus.OK, "false").delayUntil(response -> release.asMono()));
+
+        // When
+        Mono<Void> first = userService.syncUser(USER_ID, registerRequest());
+        Mono<Void> second = userService.syncUser(USER_ID, registerRequest());
+        first.subscribe();
+        second.subscribe();
+        release.tryEmitEmpty();
+
+        // Then
+        assertNull(first.block(Duration.ofSeconds(5)));
+        assertNull(second.block(Duration.ofSeconds(5)));
+        assertEquals(List.of("GET /api/users/" + USER_ID + "/validate", "POST /api/users/register"), requests);
+    }
+
+    @Test
+    @DisplayName("Should sync again after a failed sync")
+    void shouldRetrySync_WhenPreviousSyncFailed() {
+        // Given
+        validateResponse.set(json(HttpStatus.SERVICE_UNAVAILABLE, "{}"));
+        assertThrows(RuntimeException.class, () -> userService.syncUser(USER_ID, registerRequest()).block());
+
+        // When
+        validateResponse.set(json(HttpStatus.OK, "true"));
+        userService.syncUser(USER_ID, registerRequest()).block();
+
+        // Then
+        assertEquals(List.of("GET /api/users/" + USER_ID + "/validate", "GET /api/users/" + USER_ID + "/validate"),
+                requests);
+    }
+
+    @Test
+    @DisplayName("Should skip user-service for a user synced before")
+    void shouldSkipSync_WhenUserIsKnown() {
+        // Given
+        validateResponse.set(json(HttpStatus.OK, "true"));
+        userService.syncUser(USER_ID, registerRequest()).block();
+        requests.clear();
+
+        // When
+        userService.syncUser(USER_ID, registerRequest()).block();
+
+        // Then
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not remember a user whose registration failed")
+    void shouldNotRememberUser_WhenRegistrationFails() {
+        // Given
+        validateResponse.set(json(HttpStatus.OK, "false"));
+        registerFails = true;
+        assertThrows(RuntimeException.class, () -> userService.syncUser(USER_ID, registerRequest()).block());
+        requests.clear();
+
+        // When
+        registerFails = false;
+        userService.syncUser(USER_ID, registerRequest()).block();
+
+        // Then
+        assertEquals(List.of("GET /api/users/" + USER_ID + "/validate", "POST /api/users/register"), requests);
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request) {
+
+        requests.add(request.method().name() + " " + request.url().getPath());
+        if (request.method() == HttpMethod.GET) {
+            return validateResponse.get();
+        }
+        return registerFails ? json(HttpStatus.INTERNAL_SERVER_ERROR, "{}") : json(HttpStatus.OK, "{\"id\":\"1\"}");
+    }
+
+    private static Mono<ClientResponse> json(HttpStatus status, String body) {
+        return Mono.fromSupplier(() -> ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    private static RegisterRequest registerRequest() {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setKeyCloakId(USER_ID);
+        registerRequest.setEmail("jane@example.com");
+        registerRequest.setPassword("dummy@123123");
+        registerRequest.setFirstName("Jane");
+        registerRequest.setLastName("Doe");
+        return registerRequest;
+    }
+}
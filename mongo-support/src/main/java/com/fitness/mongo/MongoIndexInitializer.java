@@ -0,0 +1,143 @@
+package com.fitness.mongo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the indexes declared on the Mongo documents ({@code @Indexed}, {@code @CompoundIndex})
+ * at startup and checks that every derived repository query is supported by one of them.
+ *
+ * <p>Index creation is idempotent: existing indexes with the same definition are left alone.
+ * A derived query counts as supported when the fields it filters and sorts on form the leading
+ * keys of some index of its collection. Unsupported queries are logged as warnings, or fail the
+ * startup when {@code failFast} is set, which is also how a unique index that cannot be built on existing
+ * duplicates stops the service.</p>
+ *
+ * <p>Runs once all singletons exist but before lifecycle beans start, so no message listener, scheduled
+ * task or web request reaches a collection before its indexes, unique ones included, are in place.
+ * Each service registers it as a bean.</p>
+ */
+@Slf4j
+public class MongoIndexInitializer implements SmartInitializingSingleton {
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mongoMappingContext;
+    private final ApplicationContext applicationContext;
+    private final boolean failFast;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mongoMappingContext,
+                                 ApplicationContext applicationContext, boolean failFast) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoMappingContext = mongoMappingContext;
+        this.applicationContext = applicationContext;
+        this.failFast = failFast;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+
+        List<String> problems = new ArrayList<>();
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+
+        for (MongoPersistentEntity<?> entity : mongoMappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            for (IndexDefinition indexDefinition : indexResolver.resolveIndexFor(entity.getType())) {
+                try {
+                    mongoTemplate.indexOps(entity.getCollection()).createIndex(indexDefinition);
+                } catch (Exception e) {
+                    problems.add(String.format("Could not create index %s on %s: %s",
+                            indexDefinition.getIndexKeys(), entity.getCollection(), e.getMessage()));
+                }
+            }
+        }
+
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            repositories.getRepositoryInformationFor(domainType)
+                    .ifPresent(repositoryInformation -> verifyQueryMethods(repositoryInformation, problems));
+        }
+
+        if (problems.isEmpty()) {
+            log.info("Mongo indexes verified for all repository queries");
+            return;
+        }
+        problems.forEach(log::warn);
+        if (failFast) {
+            throw new IllegalStateException("Mongo index verification failed: " + problems);
+        }
+    }
+
+    private void verifyQueryMethods(RepositoryInformation repositoryInformation, List<String> problems) {
+
+        MongoPersistentEntity<?> entity = mongoMappingContext.getRequiredPersistentEntity(repositoryInformation.getDomainType());
+        List<List<String>> indexes = mongoTemplate.indexOps(entity.getCollection()).getIndexInfo().stream()
+                .map(IndexInfo::getIndexFields)
+                .map(fields -> fields.stream().map(IndexField::getKey).toList())
+                .toList();
+
+        for (Method method : repositoryInformation.getQueryMethods()) {
+            //Hand written queries are not derived from the method name and cannot be checked here
+            if (method.isAnnotationPresent(Query.class) || method.isAnnotationPresent(Aggregation.class)) {
+                continue;
+            }
+            List<String> queryFields = queryFields(new PartTree(method.getName(), entity.getType()), entity);
+            if (!queryFields.isEmpty() && indexes.stream().noneMatch(index -> supports(index, queryFields))) {
+                problems.add(String.format("No index on %s supports %s.%s (fields %s)",
+                        entity.getCollection(), repositoryInformation.getRepositoryInterface().getSimpleName(),
+                        method.getName(), queryFields));
+            }
+        }
+    }
+
+    private List<String> queryFields(PartTree partTree, MongoPersistentEntity<?> entity) {
+
+        Set<String> fields = new LinkedHashSet<>();
+        for (Part part : partTree.getParts()) {
+            fields.add(fieldName(part.getProperty(), entity));
+        }
+        for (Sort.Order order : partTree.getSort()) {
+            fields.add(fieldName(PropertyPath.from(order.getProperty(), entity.getType()), entity));
+        }
+        return new ArrayList<>(fields);
+    }
+
+    private String fieldName(PropertyPath propertyPath, MongoPersistentEntity<?> entity) {
+        MongoPersistentProperty property = entity.getPersistentProperty(propertyPath.getSegment());
+        return property == null ? propertyPath.toDotPath() : property.getFieldName();
+    }
+
+    /**
+     * An index supports a query when the query's fields are exactly the index's leading keys.
+     */
+    static boolean supports(List<String> indexKeys, List<String> queryFields) {
+        return indexKeys.size() >= queryFields.size()
+                && new HashSet<>(indexKeys.subList(0, queryFields.size())).equals(new HashSet<>(queryFields));
+    }
+}
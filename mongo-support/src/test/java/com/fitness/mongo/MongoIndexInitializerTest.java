@@ -0,0 +1,35 @@
+package com.fitness.mongo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoIndexInitializerTest {
+
+    @Test
+    @DisplayName("Should accept a query on the leading keys of an index in any order")
+    void shouldSupportQuery_WhenFieldsAreLeadingKeys() {
+        // Given
+        List<String> index = List.of("userId", "startTime", "_id");
+
+        // When / Then
+        assertTrue(MongoIndexInitializer.supports(index, List.of("userId")));
+        assertTrue(MongoIndexInitializer.supports(index, List.of("startTime", "userId")));
+        assertTrue(MongoIndexInitializer.supports(index, List.of("userId", "startTime", "_id")));
+    }
+
+    @Test
+    @DisplayName("Should reject a query that skips a leading key or uses more fields than the index")
+    void shouldNotSupportQuery_WhenFieldsAreNotLeadingKeys() {
+        // Given
+        List<String> index = List.of("userId", "createdAt");
+
+        // When / Then
+        assertFalse(MongoIndexInitializer.supports(index, List.of("createdAt")));
+        assertFalse(MongoIndexInitializer.supports(index, List.of("userId", "activityType")));
+        assertFalse(MongoIndexInitializer.supports(index, List.of("userId", "createdAt", "activityType")));
+    }
+}
@@ -0,0 +1,39 @@
+package com.fitness.userservice.mapper;
+
+import com.fitness.userservice.dto.RegisterRequest;
+import com.fitness.userservice.dto.UserResponse;
+import com.fitness.userservice.model.User;
+import org.springframework.stereotype.Component;
+
+/**
+ * Explicit mapping between user DTOs and the {@link User} entity.
+ * Replaces reflective ModelMapper matching on the registration and validation paths.
+ */
+@Component
+public class UserMapper {
+
+    public User toUser(RegisterRequest request) {
+
+        User user = new User();
+        user.setKeyCloakId(request.getKeyCloakId());
+        user.setEmail(request.getEmail());
+        user.setPassword(request.getPassword());
+        user.setFirstName(request.getFirstName());
+        user.setLastName(request.getLastName());
+        return user;
+    }
+
+    public UserResponse toResponse(User user) {
+
+        UserResponse userResponse = new UserResponse();
+        userResponse.setId(user.getId());
+        userResponse.setKeyCloakId(user.getKeyCloakId());
+        userResponse.setEmail(user.getEmail());
+        userResponse.setPassword(user.getPassword());
+        userResponse.setFirstName(user.getFirstName());
+        userResponse.setLastName(user.getLastName());
+        userResponse.setCreatedDate(user.getCreatedDate());
+        userResponse.setUpdatedDate(user.getUpdatedDate());
+        return userResponse;
+    }
+}
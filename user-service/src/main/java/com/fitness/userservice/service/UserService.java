@@ -2,13 +2,12 @@ package com.fitness.userservice.service;
 
 import com.fitness.userservice.dto.RegisterRequest;
 import com.fitness.userservice.dto.UserResponse;
+import com.fitness.userservice.mapper.UserMapper;
 import com.fitness.userservice.model.User;
 import com.fitness.userservice.repository.UserRepository;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -21,16 +20,16 @@ public class UserService {
     private final BCryptPasswordEncoder passwordEncoder;
 
 
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
 
     public UserResponse register(@Valid RegisterRequest request) {
 
         if(userRepository.existsByEmail(request.getEmail())){
            User existingUser = userRepository.findByEmail(request.getEmail());
-            return modelMapper.map(existingUser, UserResponse.class);
+            return userMapper.toResponse(existingUser);
         }
 
-        User newUser = modelMapper.map(request,User.class);
+        User newUser = userMapper.toUser(request);
 
         //Encrypt password before saving to the db for security
 
@@ -38,7 +37,7 @@ public class UserService {
 
         User savedUser = userRepository.save(newUser);
 
-        return modelMapper.map(savedUser,UserResponse.class);
+        return userMapper.toResponse(savedUser);
     }
 
     public UserResponse getUserProfile(String userId) {
@@ -46,7 +45,7 @@ public class UserService {
         User retrievedUser = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
 
 
-        return modelMapper.map(retrievedUser,UserResponse.class);
+        return userMapper.toResponse(retrievedUser);
     }
 
     public Boolean existsByUserId(String userId) {
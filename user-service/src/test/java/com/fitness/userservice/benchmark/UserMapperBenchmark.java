@@ -0,0 +1,83 @@
+package com.fitness.userservice.benchmark;
+
+import com.fitness.userservice.dto.RegisterRequest;
+import com.fitness.userservice.dto.UserResponse;
+import com.fitness.userservice.mapper.UserMapper;
+import com.fitness.userservice.model.User;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand written {@link UserMapper} with the ModelMapper setup it replaced.
+ *
+ * <p>Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.fitness.userservice.benchmark.UserMapperBenchmark -Dexec.classpathScope=test}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private UserMapper userMapper;
+    private RegisterRequest registerRequest;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        //Same configuration the service used before the explicit mapper
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+        userMapper = new UserMapper();
+
+        registerRequest = new RegisterRequest();
+        registerRequest.setKeyCloakId("3f0c2b9e-6d0a-4a57-9d1b-8f1e2c3d4b5a");
+        registerRequest.setEmail("john@example.com");
+        registerRequest.setPassword("password123");
+        registerRequest.setFirstName("John");
+        registerRequest.setLastName("Doe");
+
+        user = userMapper.toUser(registerRequest);
+        user.setId("user-123");
+        user.setCreatedDate(LocalDateTime.of(2024, 5, 1, 8, 20));
+        user.setUpdatedDate(LocalDateTime.of(2024, 5, 1, 8, 20));
+    }
+
+    @Benchmark
+    public User modelMapperRequestToUser() {
+        return modelMapper.map(registerRequest, User.class);
+    }
+
+    @Benchmark
+    public User explicitRequestToUser() {
+        return userMapper.toUser(registerRequest);
+    }
+
+    @Benchmark
+    public UserResponse modelMapperUserToResponse() {
+        return modelMapper.map(user, UserResponse.class);
+    }
+
+    @Benchmark
+    public UserResponse explicitUserToResponse() {
+        return userMapper.toResponse(user);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -1,9 +1,9 @@
 package com.fitness.userservice.service;
 
-import com.fitness.userservice.config.ModelMapperConfig;
 import com.fitness.userservice.config.SecurityConfig;
 import com.fitness.userservice.dto.RegisterRequest;
 import com.fitness.userservice.dto.UserResponse;
+import com.fitness.userservice.mapper.UserMapper;
 import com.fitness.userservice.model.User;
 import com.fitness.userservice.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,7 +13,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.Optional;
@@ -28,23 +27,21 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    private ModelMapper modelMapper;
+    private UserMapper userMapper;
     private BCryptPasswordEncoder bCryptPasswordEncoder;
 
     private UserService userService;
 
     @BeforeEach
     void setUp() {
-        // Initialize config ModelMapper and set to modelMapper
-        ModelMapperConfig modelMapperConfig = new ModelMapperConfig();
-        modelMapper = modelMapperConfig.modelMapper();
+        userMapper = new UserMapper();
 
         SecurityConfig securityConfig = new SecurityConfig();
         bCryptPasswordEncoder = securityConfig.bCryptPasswordEncoder();
 
 
-        // Create service with mocked repository and real ModelMapper
-        userService = new UserService(userRepository, bCryptPasswordEncoder, modelMapper);
+        // Create service with mocked repository and real UserMapper
+        userService = new UserService(userRepository, bCryptPasswordEncoder, userMapper);
     }
 
     // ============================================